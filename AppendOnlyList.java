@@ -0,0 +1,63 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Growable list with one writer at a time and any number of lock-free readers. Elements
+// are only ever appended, so snapshot() is O(1): it captures the current array and size,
+// and later appends land past that size (or in a new, larger array) without disturbing
+// it. Callers serialize add() themselves (RentalSystem does it under its write lock).
+public class AppendOnlyList<T> {
+    private volatile Object[] elements = new Object[16];
+    private volatile int size;
+
+    public void add(T element) {
+        Object[] array = elements;
+        int n = size;
+        if (n == array.length) {
+            array = Arrays.copyOf(array, n * 2);
+            elements = array; // snapshots holding the old array still see a valid prefix
+        }
+        array[n] = element;
+        size = n + 1; // volatile write publishes the element
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        int n = size;
+        if (index < 0 || index >= n) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + n);
+        return (T) elements[index];
+    }
+
+    // Read-only view of the elements added so far
+    public List<T> snapshot() {
+        int n = size; // read before the array: whichever array we then see holds this prefix
+        return new Snapshot<>(elements, n);
+    }
+
+    private static final class Snapshot<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        Snapshot(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
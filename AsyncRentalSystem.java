@@ -0,0 +1,88 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Async facade over RentalSystem. Every call runs on its own virtual thread so the
+// blocking file I/O in add/rent/return no longer ties up a platform thread.
+// A semaphore bounds the number of in-flight requests: once the limit is reached,
+// callers wait in submit() instead of piling up queued tasks in memory.
+public class AsyncRentalSystem implements AutoCloseable {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private final RentalSystem rentalSystem;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    public AsyncRentalSystem(RentalSystem rentalSystem) {
+        this(rentalSystem, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AsyncRentalSystem(RentalSystem rentalSystem, int maxInFlight) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("maxInFlight must be > 0");
+        this.rentalSystem = rentalSystem;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<Boolean> addVehicle(Vehicle vehicle) {
+        return submit(() -> rentalSystem.addVehicle(vehicle));
+    }
+
+    public CompletableFuture<Boolean> addCustomer(Customer customer) {
+        return submit(() -> rentalSystem.addCustomer(customer));
+    }
+
+    public CompletableFuture<Boolean> rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
+        return submit(() -> rentalSystem.rentVehicle(vehicle, customer, date, amount));
+    }
+
+    public CompletableFuture<Boolean> returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+        return submit(() -> rentalSystem.returnVehicle(vehicle, customer, date, extraFees));
+    }
+
+    public CompletableFuture<Vehicle> findVehicleByPlate(String plate) {
+        return submit(() -> rentalSystem.findVehicleByPlate(plate));
+    }
+
+    public CompletableFuture<Customer> findCustomerById(int id) {
+        return submit(() -> rentalSystem.findCustomerById(id));
+    }
+
+    public CompletableFuture<List<RentalRecord>> getRentalRecordsByCustomer(String customerName) {
+        return submit(() -> rentalSystem.getRentalRecordsByCustomer(customerName));
+    }
+
+    public CompletableFuture<List<RentalRecord>> getRentalRecordsByVehicle(String licensePlate) {
+        return submit(() -> rentalSystem.getRentalRecordsByVehicle(licensePlate));
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            permits.acquire(); // backpressure: block the caller while the limit is reached
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new CompletionException(e));
+        }
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(task, executor);
+            future.whenComplete((result, error) -> permits.release());
+            return future;
+        } catch (RuntimeException e) { // executor already shut down
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close(); // waits for in-flight requests to finish
+    }
+}
@@ -17,12 +17,20 @@ public class Car extends Vehicle implements Rentable {
 
     @Override
     public void rentVehicle() {
+        if (!getStatus().canBecome(VehicleStatus.Rented)) {
+            System.out.println("Car " + getLicensePlate() + " cannot be rented while " + getStatus() + ".");
+            return;
+        }
         setStatus(VehicleStatus.Rented);
         System.out.println("Car " + getLicensePlate() + " has been rented.");
     }
 
     @Override
     public void returnVehicle() {
+        if (getStatus() != VehicleStatus.Rented) {
+            System.out.println("Car " + getLicensePlate() + " is not rented.");
+            return;
+        }
         setStatus(VehicleStatus.Available);
         System.out.println("Car " + getLicensePlate() + " has been returned.");
     }
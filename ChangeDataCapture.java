@@ -0,0 +1,298 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Change-data-capture stream for RentalSystem. Every add-vehicle, add-customer, rent,
+// return and maintenance status move is numbered with a global offset and appended to changes.log in the data
+// directory. It is also published into a ring buffer. RentalSystem calls listeners under
+// its write lock, so there is exactly one producer at a time. Publishing never waits for
+// consumers: a consumer that falls more than a ring's length behind catches up from the
+// log file instead.
+//
+// Each subscription has its own delivery thread. That thread hands the consumer batches
+// in offset order and persists the last acknowledged offset under cdc/<consumerId>.offset.
+// After a restart, delivery resumes right after that offset (at-least-once).
+public class ChangeDataCapture implements RentalSystemListener, AutoCloseable {
+    public static final String LOG_FILE = "changes.log";
+    public static final int DEFAULT_RING_SIZE = 1 << 14;
+    private static final int INDEX_STRIDE = 256; // byte position kept for every 256th offset
+
+    public interface Consumer {
+        // Returning normally acknowledges the whole batch; throwing redelivers it
+        void onEvents(List<ChangeEvent> batch) throws Exception;
+    }
+
+    private final RentalSystem rentalSystem;
+    private final Path offsetDir;
+    private final FileChannel log;
+    private final ChangeEvent[] ring;
+    private final int mask;
+    private volatile long published = -1; // last offset in both the log and the ring
+    private long[] logIndex = new long[64]; // guarded by this: byte position of offset i * INDEX_STRIDE
+    private final Set<Subscription> subscriptions = new CopyOnWriteArraySet<>();
+    private Vehicle recordVehicle; // under RentalSystem's write lock: vehicle of the record just published
+
+    public static ChangeDataCapture attach(RentalSystem rentalSystem) throws IOException {
+        return attach(rentalSystem, DEFAULT_RING_SIZE);
+    }
+
+    // Attach at startup, before the system takes writes. On first use the log is seeded
+    // with the current vehicles, customers and history.
+    public static ChangeDataCapture attach(RentalSystem rentalSystem, int ringSize) throws IOException {
+        if (Integer.bitCount(ringSize) != 1) throw new IllegalArgumentException("ringSize must be a power of two");
+        boolean seed = !Files.exists(rentalSystem.dataFile(LOG_FILE));
+        ChangeDataCapture cdc = new ChangeDataCapture(rentalSystem, ringSize, seed);
+        rentalSystem.addListener(cdc, seed);
+        // The replay ends on a recordAdded with no vehicleUpdated after it; without this the
+        // next status move of that record's vehicle would be taken for its echo. Under the
+        // read lock no write is half done, so recordVehicle is either stale or already null.
+        rentalSystem.getLock().readLock().lock();
+        try {
+            cdc.recordVehicle = null;
+        } finally {
+            rentalSystem.getLock().readLock().unlock();
+        }
+        return cdc;
+    }
+
+    private ChangeDataCapture(RentalSystem rentalSystem, int ringSize, boolean seed) throws IOException {
+        this.rentalSystem = rentalSystem;
+        this.ring = new ChangeEvent[ringSize];
+        this.mask = ringSize - 1;
+        this.offsetDir = rentalSystem.dataFile("cdc");
+        Files.createDirectories(offsetDir);
+        this.log = FileChannel.open(rentalSystem.dataFile(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!seed) recoverIndex();
+        log.position(log.size());
+    }
+
+    public long getLastOffset() {
+        return published;
+    }
+
+    public Subscription subscribe(String consumerId, int maxBatch, Consumer consumer) throws IOException {
+        if (!consumerId.matches("[A-Za-z0-9_-]+")) throw new IllegalArgumentException("Bad consumer id: " + consumerId);
+        Path offsetFile = offsetDir.resolve(consumerId + ".offset");
+        long acked = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : -1;
+        return start(new Subscription(consumerId, true, acked, maxBatch, consumer));
+    }
+
+    // Non-durable subscription starting right after afterOffset; the caller keeps track of
+    // its own position (e.g. a ReplicaFollower resuming from its last applied offset)
+    public Subscription tail(long afterOffset, int maxBatch, Consumer consumer) {
+        return start(new Subscription("tail", false, afterOffset, maxBatch, consumer));
+    }
+
+    private Subscription start(Subscription subscription) {
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rentalSystem.removeListener(this);
+        for (Subscription s : subscriptions) s.close();
+        log.close();
+    }
+
+    // Listener side (single producer, under RentalSystem's write lock)
+
+    @Override
+    public void vehicleAdded(Vehicle vehicle) {
+        publish(ChangeEvent.Type.VEHICLE_ADDED, RentalSystem.vehicleLine(vehicle));
+    }
+
+    @Override
+    public void customerAdded(Customer customer) {
+        publish(ChangeEvent.Type.CUSTOMER_ADDED, RentalSystem.customerLine(customer));
+    }
+
+    @Override
+    public void recordAdded(RentalRecord record) {
+        publish("RETURN".equals(record.getRecordType()) ? ChangeEvent.Type.RETURN : ChangeEvent.Type.RENT,
+            RentalSystem.recordLine(record));
+        recordVehicle = record.getVehicle();
+    }
+
+    // A rent or return is followed by vehicleUpdated for its vehicle; the RENT/RETURN event
+    // already carries that change, so only other moves (maintenance) are published
+    @Override
+    public void vehicleUpdated(Vehicle vehicle) {
+        if (vehicle == recordVehicle) {
+            recordVehicle = null;
+            return;
+        }
+        publish(ChangeEvent.Type.VEHICLE_UPDATED, RentalSystem.vehicleLine(vehicle));
+    }
+
+    private void publish(ChangeEvent.Type type, String line) {
+        long offset = published + 1;
+        ChangeEvent event = new ChangeEvent(offset, type, line.substring(0, line.length() - 1)); // drop '\n'
+        try {
+            if (offset % INDEX_STRIDE == 0) indexPosition(offset, log.position());
+            ByteBuffer bytes = ByteBuffer.wrap(event.toLogLine().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) log.write(bytes);
+        } catch (IOException e) {
+            System.out.println("Error writing change log: " + e.getMessage());
+            return; // not published, so consumers never see an offset the log lacks
+        }
+        ring[(int) (offset & mask)] = event;
+        published = offset; // volatile write publishes the slot
+        for (Subscription s : subscriptions) LockSupport.unpark(s.thread);
+    }
+
+    private synchronized void indexPosition(long offset, long position) {
+        int slot = (int) (offset / INDEX_STRIDE);
+        if (slot >= logIndex.length) logIndex = Arrays.copyOf(logIndex, Math.max(slot + 1, logIndex.length * 2));
+        logIndex[slot] = position;
+    }
+
+    private synchronized long indexedPosition(long offset) {
+        return logIndex[(int) (offset / INDEX_STRIDE)];
+    }
+
+    // Rebuilds the sparse offset index and the last offset from an existing log
+    private void recoverIndex() throws IOException {
+        long offset = -1;
+        long position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(rentalSystem.dataFile(LOG_FILE)), 1 << 16)) {
+            long lineStart = 0;
+            boolean atLineStart = true;
+            int b;
+            while ((b = in.read()) != -1) {
+                if (atLineStart) {
+                    lineStart = position;
+                    atLineStart = false;
+                }
+                position++;
+                if (b == '\n') {
+                    offset++;
+                    if (offset % INDEX_STRIDE == 0) indexPosition(offset, lineStart);
+                    atLineStart = true;
+                }
+            }
+        }
+        log.truncate(lastNewline(position)); // drop a torn last line from a crash
+        published = offset;
+    }
+
+    private long lastNewline(long size) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        for (long p = size - 1; p >= 0; p--) {
+            one.clear();
+            log.read(one, p);
+            if (one.get(0) == '\n') return p + 1;
+        }
+        return 0;
+    }
+
+    // Reads events [from, to] from the log file, starting at the nearest indexed position
+    private List<ChangeEvent> readFromLog(long from, long to) throws IOException {
+        List<ChangeEvent> events = new ArrayList<>();
+        long offset = from - from % INDEX_STRIDE;
+        try (FileChannel in = FileChannel.open(rentalSystem.dataFile(LOG_FILE), StandardOpenOption.READ)) {
+            in.position(indexedPosition(offset));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(in), StandardCharsets.UTF_8));
+            String line;
+            while (offset <= to && (line = reader.readLine()) != null) {
+                if (offset >= from) events.add(ChangeEvent.parseLogLine(line));
+                offset++;
+            }
+        }
+        return events;
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final String consumerId;
+        private final boolean durable;
+        private final int maxBatch;
+        private final Consumer consumer;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long acked;
+
+        private Subscription(String consumerId, boolean durable, long acked, int maxBatch, Consumer consumer) {
+            this.consumerId = consumerId;
+            this.durable = durable;
+            this.acked = acked;
+            this.maxBatch = Math.max(1, maxBatch);
+            this.consumer = consumer;
+            this.thread = Thread.ofVirtual().name("cdc-" + consumerId).unstarted(this::deliver);
+        }
+
+        public long getAckedOffset() {
+            return acked;
+        }
+
+        // How many published events this consumer has not acknowledged yet
+        public long getLag() {
+            return published - acked;
+        }
+
+        private void deliver() {
+            while (running) {
+                long next = acked + 1;
+                long last = published;
+                if (next > last) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+                    continue;
+                }
+                long to = Math.min(last, next + maxBatch - 1);
+                try {
+                    List<ChangeEvent> batch = readRing(next, to);
+                    if (batch == null) batch = readFromLog(next, to);
+                    consumer.onEvents(batch);
+                    acknowledge(to);
+                } catch (Exception e) {
+                    System.out.println("CDC consumer " + consumerId + " failed at offset " + next + ": " + e.getMessage());
+                    LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1)); // back off, then redeliver
+                }
+            }
+        }
+
+        // Copies [from, to] out of the ring, or null if the producer has lapped any of it.
+        // Each event carries its offset, so a slot that was reused is detected directly.
+        private List<ChangeEvent> readRing(long from, long to) {
+            if (published - from >= ring.length - 1) return null;
+            List<ChangeEvent> batch = new ArrayList<>((int) (to - from + 1));
+            for (long o = from; o <= to; o++) {
+                ChangeEvent event = ring[(int) (o & mask)];
+                if (event == null || event.getOffset() != o) return null;
+                batch.add(event);
+            }
+            return batch;
+        }
+
+        private void acknowledge(long offset) throws IOException {
+            if (durable) {
+                Path tmp = offsetDir.resolve(consumerId + ".offset.tmp");
+                Files.writeString(tmp, Long.toString(offset));
+                Files.move(tmp, offsetDir.resolve(consumerId + ".offset"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            acked = offset;
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            subscriptions.remove(this);
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+// One change captured by ChangeDataCapture. The payload is the line RentalSystem writes
+// to the matching data file (vehicles.txt, customers.txt or rental_records.txt);
+// VEHICLE_UPDATED carries the vehicle's line with its new (maintenance) status.
+public class ChangeEvent {
+    public enum Type { VEHICLE_ADDED, CUSTOMER_ADDED, RENT, RETURN, VEHICLE_UPDATED }
+
+    private final long offset;
+    private final Type type;
+    private final String payload;
+
+    public ChangeEvent(long offset, Type type, String payload) {
+        this.offset = offset;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    // Line in the change log: offset,TYPE,payload
+    String toLogLine() {
+        return offset + "," + type + "," + payload + "\n";
+    }
+
+    static ChangeEvent parseLogLine(String line) {
+        int first = line.indexOf(',');
+        int second = line.indexOf(',', first + 1);
+        return new ChangeEvent(Long.parseLong(line.substring(0, first)),
+            Type.valueOf(line.substring(first + 1, second)), line.substring(second + 1));
+    }
+
+    @Override
+    public String toString() {
+        return offset + " " + type + " " + payload;
+    }
+}
@@ -0,0 +1,57 @@
+import java.io.PrintStream;
+
+// Builds console table rows into one reusable StringBuilder and hands them to the stream
+// in blocks of about FLUSH_CHARS, instead of one printf (format parse, lock, flush) per
+// row. Cells are padded by hand, the same as printf's %-Ns. Callers must call flush()
+// when done.
+public class ConsoleTable {
+    private static final int FLUSH_CHARS = 1 << 16;
+
+    private final PrintStream out;
+    private final StringBuilder sb = new StringBuilder(FLUSH_CHARS + 256);
+
+    public ConsoleTable(PrintStream out) {
+        this.out = out;
+    }
+
+    public ConsoleTable text(String text) {
+        sb.append(text);
+        return this;
+    }
+
+    // value left-aligned in at least `width` characters, like %-<width>s
+    public ConsoleTable pad(String value, int width) {
+        int start = sb.length();
+        sb.append(value);
+        for (int i = sb.length() - start; i < width; i++) sb.append(' ');
+        return this;
+    }
+
+    public ConsoleTable pad(long value, int width) {
+        int start = sb.length();
+        sb.append(value);
+        for (int i = sb.length() - start; i < width; i++) sb.append(' ');
+        return this;
+    }
+
+    public ConsoleTable padMoney(long cents, int width) {
+        int start = sb.length();
+        Money.format(cents, sb);
+        for (int i = sb.length() - start; i < width; i++) sb.append(' ');
+        return this;
+    }
+
+    public ConsoleTable endRow() {
+        sb.append(System.lineSeparator());
+        if (sb.length() >= FLUSH_CHARS) flush();
+        return this;
+    }
+
+    public void flush() {
+        if (sb.length() > 0) {
+            out.append(sb);
+            sb.setLength(0);
+        }
+        out.flush();
+    }
+}
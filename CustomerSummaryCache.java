@@ -0,0 +1,221 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded cache of per-customer history summaries (rentals, returns, last rental, lifetime
+// spend) for screens that show the same regulars again and again. A miss scans the history
+// once; after that the entry is kept current from recordAdded, so a cached summary is never
+// stale and a hit costs one map lookup. Least recently used entries are evicted beyond
+// maxEntries.
+//
+// Readers never block each other: entries live in a ConcurrentHashMap and recency is an
+// approximate LRU. Each entry carries the stamp of the clock when last read; the clock only
+// ticks on misses, so a hit writes its stamp at most once between misses and otherwise
+// touches nothing shared. Once the map grows past maxEntries, whichever thread wins the
+// eviction lock drops the oldest-stamped tenth in one batch; others carry on.
+//
+// A miss scans a snapshot without any lock, then catches up on the few records added during
+// the scan under RentalSystem's read lock and publishes the entry before releasing it; since
+// recordAdded runs under the write lock, no record can fall between the two.
+public class CustomerSummaryCache implements RentalSystemListener {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    // Summary + Entry + its ConcurrentHashMap node + boxed key, on a 64-bit JVM with compressed oops
+    private static final int ENTRY_BYTES = 40 + 24 + 32 + 16;
+
+    public static final class Summary {
+        public final int customerId;
+        public final int rentals;
+        public final int returns;
+        public final RentalRecord lastRental; // latest RENT, or null
+        public final long lifetimeSpendCents;  // rental charges plus return fees
+
+        Summary(int customerId, int rentals, int returns, RentalRecord lastRental, long lifetimeSpendCents) {
+            this.customerId = customerId;
+            this.rentals = rentals;
+            this.returns = returns;
+            this.lastRental = lastRental;
+            this.lifetimeSpendCents = lifetimeSpendCents;
+        }
+
+        Summary plus(RentalRecord record) {
+            boolean rent = "RENT".equals(record.getRecordType());
+            return new Summary(customerId, rentals + (rent ? 1 : 0), returns + (rent ? 0 : 1),
+                rent ? record : lastRental, lifetimeSpendCents + record.getAmountCents());
+        }
+
+        @Override
+        public String toString() {
+            return "Customer " + customerId + ": " + rentals + " rentals, " + returns + " returns, last rental "
+                + (lastRental == null ? "none" : lastRental.getVehicle().getLicensePlate() + " on " + lastRental.getRecordDate())
+                + ", lifetime spend $" + Money.format(lifetimeSpendCents);
+        }
+    }
+
+    public static class Stats {
+        public long hits;
+        public long misses;
+        public long evictions;
+        public long updates;     // cached summaries advanced by a new record
+        public long loadNanos;   // spent scanning history on misses
+        public int size;
+        public int maxEntries;
+
+        public double getHitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+
+        // Approximate heap held by the cached entries
+        public long getEstimatedBytes() {
+            return (long) size * ENTRY_BYTES;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d/%,d entries (~%,d KB), %,d hits, %,d misses (%.1f%% hit rate), %,d evictions, %,d updates, %.1f ms loading",
+                size, maxEntries, getEstimatedBytes() / 1024, hits, misses, getHitRate() * 100, evictions, updates, loadNanos / 1e6);
+        }
+    }
+
+    private static final class Entry {
+        volatile Summary summary; // only replaced under RentalSystem's lock
+        volatile long stamp;      // clock value when last read
+
+        Entry(Summary summary, long stamp) {
+            this.summary = summary;
+            this.stamp = stamp;
+        }
+    }
+
+    private final RentalSystem rentalSystem;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public static CustomerSummaryCache attach(RentalSystem rentalSystem) {
+        return attach(rentalSystem, DEFAULT_MAX_ENTRIES);
+    }
+
+    public static CustomerSummaryCache attach(RentalSystem rentalSystem, int maxEntries) {
+        CustomerSummaryCache cache = new CustomerSummaryCache(rentalSystem, maxEntries);
+        rentalSystem.addListener(cache);
+        return cache;
+    }
+
+    private CustomerSummaryCache(RentalSystem rentalSystem, int maxEntries) {
+        this.rentalSystem = rentalSystem;
+        this.maxEntries = maxEntries;
+    }
+
+    public Summary get(Customer customer) {
+        return get(customer.getCustomerId());
+    }
+
+    public Summary get(int customerId) {
+        Entry cached = entries.get(customerId);
+        if (cached != null) {
+            long now = clock.get();
+            if (cached.stamp != now) cached.stamp = now;
+            hits.increment();
+            return cached.summary;
+        }
+        misses.increment();
+        long start = System.nanoTime();
+        List<RentalRecord> history = rentalSystem.snapshot().getRentalHistory();
+        Summary summary = scan(new Summary(customerId, 0, 0, null, 0), history, 0, history.size());
+        rentalSystem.getLock().readLock().lock();
+        try {
+            List<RentalRecord> now = rentalSystem.snapshot().getRentalHistory();
+            summary = scan(summary, now, history.size(), now.size());
+            entries.put(customerId, new Entry(summary, clock.incrementAndGet()));
+        } finally {
+            rentalSystem.getLock().readLock().unlock();
+        }
+        loadNanos.add(System.nanoTime() - start);
+        if (entries.size() > maxEntries) evict();
+        return summary;
+    }
+
+    // Drops the least recently read entries down to 90% of maxEntries, so the sort is paid
+    // once per batch of misses rather than on every one
+    private void evict() {
+        if (!evictLock.tryLock()) return;
+        try {
+            int excess = entries.size() - (maxEntries - Math.max(1, maxEntries / 10));
+            if (excess <= 0) return;
+            List<Map.Entry<Integer, Entry>> byStamp = new ArrayList<>(entries.entrySet());
+            byStamp.sort(Comparator.comparingLong(e -> e.getValue().stamp));
+            for (int i = 0; i < excess && i < byStamp.size(); i++) {
+                Map.Entry<Integer, Entry> eldest = byStamp.get(i);
+                if (entries.remove(eldest.getKey(), eldest.getValue())) evictions.increment();
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    private static Summary scan(Summary summary, List<RentalRecord> history, int from, int to) {
+        int id = summary.customerId;
+        int rentals = summary.rentals;
+        int returns = summary.returns;
+        RentalRecord lastRental = summary.lastRental;
+        long spend = summary.lifetimeSpendCents;
+        for (int i = from; i < to; i++) {
+            RentalRecord record = history.get(i);
+            if (record.getCustomer().getCustomerId() != id) continue;
+            if ("RENT".equals(record.getRecordType())) {
+                rentals++;
+                lastRental = record;
+            } else {
+                returns++;
+            }
+            spend += record.getAmountCents();
+        }
+        return new Summary(id, rentals, returns, lastRental, spend);
+    }
+
+    // Runs under RentalSystem's write lock, so updates to one entry never race each other.
+    // Advancing a summary is not a read and leaves its stamp alone.
+    @Override
+    public void recordAdded(RentalRecord record) {
+        Entry cached = entries.get(record.getCustomer().getCustomerId());
+        if (cached != null) {
+            cached.summary = cached.summary.plus(record);
+            updates.increment();
+        }
+    }
+
+    public void invalidate(int customerId) {
+        entries.remove(customerId);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.hits = hits.sum();
+        stats.misses = misses.sum();
+        stats.evictions = evictions.sum();
+        stats.updates = updates.sum();
+        stats.loadNanos = loadNanos.sum();
+        stats.size = entries.size();
+        stats.maxEntries = maxEntries;
+        return stats;
+    }
+
+    public void close() {
+        rentalSystem.removeListener(this);
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+public class CustomerSummaryCacheTest {
+    private RentalSystem rentalSystem;
+    private Car car;
+    private Car otherCar;
+    private Customer ann;
+    private Customer bob;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        rentalSystem = RentalSystem.open(Files.createTempDirectory("summary-test"));
+        car = new Car("Toyota", "Camry", 2022, 5);
+        car.setLicensePlate("ABC123");
+        otherCar = new Car("Honda", "Civic", 2021, 5);
+        otherCar.setLicensePlate("XYZ789");
+        rentalSystem.addVehicle(car);
+        rentalSystem.addVehicle(otherCar);
+        ann = new Customer(1, "Ann");
+        bob = new Customer(2, "Bob");
+        rentalSystem.addCustomer(ann);
+        rentalSystem.addCustomer(bob);
+    }
+
+    // What a fresh scan of the history gives, to compare the cached summary against
+    private CustomerSummaryCache.Summary fresh(Customer customer) {
+        CustomerSummaryCache uncached = CustomerSummaryCache.attach(rentalSystem);
+        try {
+            return uncached.get(customer);
+        } finally {
+            uncached.close();
+        }
+    }
+
+    private static void assertSameSummary(CustomerSummaryCache.Summary expected, CustomerSummaryCache.Summary actual) {
+        assertEquals(expected.customerId, actual.customerId);
+        assertEquals(expected.rentals, actual.rentals);
+        assertEquals(expected.returns, actual.returns);
+        assertSame(expected.lastRental, actual.lastRental);
+        assertEquals(expected.lifetimeSpendCents, actual.lifetimeSpendCents);
+    }
+
+    @Test
+    public void testCachedSummaryFollowsRentAndReturn() {
+        CustomerSummaryCache cache = CustomerSummaryCache.attach(rentalSystem);
+        LocalDate day = LocalDate.of(2024, 5, 1);
+
+        CustomerSummaryCache.Summary empty = cache.get(ann);
+        assertEquals(0, empty.rentals);
+        assertNull(empty.lastRental);
+
+        rentalSystem.rentVehicle(car, ann, day, 50.0);
+        rentalSystem.rentVehicle(otherCar, bob, day, 70.0); // someone else's record
+        CustomerSummaryCache.Summary rented = cache.get(ann);
+        assertEquals(1, rented.rentals);
+        assertEquals(0, rented.returns);
+        assertEquals(50_00, rented.lifetimeSpendCents);
+        assertEquals("ABC123", rented.lastRental.getVehicle().getLicensePlate());
+        assertSameSummary(fresh(ann), rented);
+
+        rentalSystem.returnVehicle(car, ann, day.plusDays(2), 12.5);
+        rentalSystem.rentVehicle(car, ann, day.plusDays(3), 40.0);
+        CustomerSummaryCache.Summary later = cache.get(ann);
+        assertEquals(2, later.rentals);
+        assertEquals(1, later.returns);
+        assertEquals(102_50, later.lifetimeSpendCents);
+        assertEquals(day.plusDays(3), later.lastRental.getRecordDate());
+        assertSameSummary(fresh(ann), later);
+
+        // Every read after the first was a hit kept current by recordAdded
+        CustomerSummaryCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.misses);
+        assertEquals(2, stats.hits);
+        assertEquals(3, stats.updates);
+        cache.close();
+    }
+
+    @Test
+    public void testClosedCacheStopsFollowing() {
+        CustomerSummaryCache cache = CustomerSummaryCache.attach(rentalSystem);
+        cache.get(ann);
+        cache.close();
+        rentalSystem.rentVehicle(car, ann, LocalDate.of(2024, 5, 1), 50.0);
+        assertEquals(0, cache.get(ann).rentals); // stale by design once detached
+
+        cache.invalidate(ann.getCustomerId());
+        assertEquals(1, cache.get(ann).rentals);
+    }
+
+    @Test
+    public void testEntriesStayWithinMaxEntries() {
+        CustomerSummaryCache cache = CustomerSummaryCache.attach(rentalSystem, 10);
+        for (int id = 1; id <= 100; id++) cache.get(id);
+        CustomerSummaryCache.Stats stats = cache.getStats();
+        assertTrue(stats.size <= 10, "size " + stats.size);
+        assertTrue(stats.evictions >= 90, "evictions " + stats.evictions);
+
+        // Evicted customers reload correctly
+        rentalSystem.rentVehicle(car, ann, LocalDate.of(2024, 5, 1), 50.0);
+        assertEquals(1, cache.get(ann).rentals);
+        cache.close();
+    }
+}
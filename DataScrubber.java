@@ -0,0 +1,603 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Checks the data files the way RentalSystem loads them, without loading them: each file
+// is split into CHUNK_BYTES chunks on line boundaries and the chunks are parsed in
+// parallel straight from mapped memory, then merged in file order. Reports, with line
+// numbers:
+//  - malformed lines (the loader drops them, or used to abort on them)
+//  - duplicate plates and customer ids (the loader keeps the first / keeps both)
+//  - records whose plate or customer is not on file (orphans, dropped by the loader)
+//  - impossible sequences per plate: RETURN without an open RENT, RENT while rented
+// The archive and live records files are checked as one history, archive first. With
+// --repair each file that has problems is copied to <file>.repaired without those lines.
+//   java DataScrubber [dataDir] [--repair] [--threads N]
+public class DataScrubber {
+    public enum Problem { MALFORMED, DUPLICATE, ORPHAN_VEHICLE, ORPHAN_CUSTOMER, RETURN_WITHOUT_RENT, RENT_WHILE_RENTED }
+
+    private static final int CHUNK_BYTES = 32 << 20;
+    private static final int MAX_LISTED = 20; // example lines kept per file
+    private static final int RENT = 1, RETURN = 2;
+    private static final int MAX_FIELDS = 10; // the last one takes the rest of the line
+
+    public static class FileReport {
+        public final String file;
+        public long lines;
+        public long bytes;
+        public final long[] counts = new long[Problem.values().length];
+        public final List<String> examples = new ArrayList<>(); // the first MAX_LISTED, in line order
+        private final TreeMap<Long, String> listed = new TreeMap<>();
+        private long[] badLines = new long[16]; // 1-based, for --repair
+        private int badCount;
+
+        FileReport(String file) {
+            this.file = file;
+        }
+
+        public long problems() {
+            long total = 0;
+            for (long c : counts) total += c;
+            return total;
+        }
+
+        void add(long line, Problem problem, String detail) {
+            counts[problem.ordinal()]++;
+            if (badCount == badLines.length) badLines = Arrays.copyOf(badLines, badCount * 2);
+            badLines[badCount++] = line;
+            // chunk problems arrive before the merged ones, so keep the lowest lines seen so far
+            if (listed.size() < MAX_LISTED || line < listed.lastKey()) {
+                listed.put(line, file + ":" + line + ": " + problem + " " + detail);
+                if (listed.size() > MAX_LISTED) listed.pollLastEntry();
+            }
+        }
+
+        void finish() {
+            Arrays.sort(badLines, 0, badCount);
+            examples.addAll(listed.values());
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format("%s: %,d lines, %,d bytes", file, lines, bytes));
+            for (Problem p : Problem.values()) {
+                if (counts[p.ordinal()] > 0) sb.append(String.format(", %,d %s", counts[p.ordinal()], p));
+            }
+            if (problems() == 0) sb.append(", no problems");
+            for (String example : examples) sb.append("\n  ").append(example);
+            if (problems() > examples.size()) sb.append("\n  ...");
+            return sb.toString();
+        }
+    }
+
+    public static class Report {
+        public final List<FileReport> files = new ArrayList<>();
+        public long bytes;
+        public long nanos;
+
+        public long problems() {
+            long total = 0;
+            for (FileReport f : files) total += f.problems();
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (FileReport f : files) sb.append(f).append('\n');
+            sb.append(String.format("%,d problems in %,d bytes, %.1f ms (%.0f MB/s)",
+                problems(), bytes, nanos / 1e6, bytes / 1e6 / Math.max(nanos / 1e9, 1e-9)));
+            return sb.toString();
+        }
+    }
+
+    private final Path dataDir;
+    private final int threads;
+    private final int chunkBytes;
+
+    public DataScrubber(Path dataDir, int threads) {
+        this(dataDir, threads, CHUNK_BYTES);
+    }
+
+    // Smaller chunks put chunk boundaries inside small files (tests)
+    DataScrubber(Path dataDir, int threads, int chunkBytes) {
+        this.dataDir = dataDir;
+        this.threads = Math.max(1, threads);
+        this.chunkBytes = chunkBytes;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("");
+        boolean repair = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--repair")) repair = true;
+            else if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else dir = Paths.get(args[i]);
+        }
+        DataScrubber scrubber = new DataScrubber(dir, threads);
+        Report report = scrubber.check();
+        System.out.println(report);
+        if (repair) {
+            for (Path repaired : scrubber.repair(report)) System.out.println("Wrote " + repaired);
+        }
+        System.exit(report.problems() == 0 ? 0 : 1);
+    }
+
+    public Report check() throws IOException {
+        long start = System.nanoTime();
+        Report report = new Report();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "data-scrubber");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            // vehicles and customers first: records are checked against them
+            FileReport vehicleReport = new FileReport(RentalSystem.VEHICLES_FILE);
+            KeyIndex plates = mergeKeys(vehicleReport, PlateCodec::decode, scan(pool, RentalSystem.VEHICLES_FILE, vehicleReport, VehicleChunk::new));
+            FileReport customerReport = new FileReport(RentalSystem.CUSTOMERS_FILE);
+            KeyIndex customers = mergeKeys(customerReport, String::valueOf, scan(pool, RentalSystem.CUSTOMERS_FILE, customerReport, CustomerChunk::new));
+            report.files.add(vehicleReport);
+            report.files.add(customerReport);
+
+            byte[] lastType = new byte[plates.size()]; // carried from chunk to chunk, across both files
+            for (String file : new String[] {RentalSystem.RECORDS_ARCHIVE_FILE, RentalSystem.RECORDS_FILE}) {
+                FileReport recordReport = new FileReport(file);
+                List<RecordChunk> chunks = scan(pool, file, recordReport, () -> new RecordChunk(plates, customers));
+                mergeSequences(recordReport, chunks, plates, lastType);
+                report.files.add(recordReport);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        for (FileReport f : report.files) {
+            report.bytes += f.bytes;
+            f.finish();
+        }
+        report.nanos = System.nanoTime() - start;
+        return report;
+    }
+
+    // Copies each file with problems to <file>.repaired, leaving out every reported line
+    public List<Path> repair(Report report) throws IOException {
+        List<Path> written = new ArrayList<>();
+        for (FileReport f : report.files) {
+            if (f.badCount == 0) continue;
+            Path in = dataDir.resolve(f.file);
+            Path out = dataDir.resolve(f.file + ".repaired");
+            try (InputStream src = Files.newInputStream(in);
+                 OutputStream dst = new BufferedOutputStream(Files.newOutputStream(out), 1 << 20)) {
+                byte[] block = new byte[1 << 20];
+                long line = 1;
+                int next = 0; // index into the sorted bad lines
+                boolean skipping = f.badLines[0] == 1;
+                int n;
+                while ((n = src.read(block)) > 0) {
+                    int from = 0; // start of the run being kept, or skipped
+                    for (int i = 0; i < n; i++) {
+                        if (block[i] != '\n') continue;
+                        if (!skipping) dst.write(block, from, i + 1 - from);
+                        from = i + 1;
+                        line++;
+                        while (next < f.badCount && f.badLines[next] < line) next++;
+                        skipping = next < f.badCount && f.badLines[next] == line;
+                    }
+                    if (!skipping) dst.write(block, from, n - from);
+                }
+            }
+            written.add(out);
+        }
+        return written;
+    }
+
+    // ---- chunked scanning ----
+
+    // Parses one chunk; line numbers are relative to the chunk (0-based)
+    private abstract static class Chunk {
+        int lines;
+        long[] problems = new long[16]; // line << 3 | problem ordinal
+        int problemCount;
+        final List<String> details = new ArrayList<>(); // for the first MAX_LISTED only
+        final Field field = new Field();
+        final int[] starts = new int[MAX_FIELDS];
+        final int[] ends = new int[MAX_FIELDS];
+
+        void problem(int line, Problem problem, ByteBuffer buffer, int start, int end) {
+            if (problemCount == problems.length) problems = Arrays.copyOf(problems, problemCount * 2);
+            problems[problemCount++] = (long) line << 3 | problem.ordinal();
+            if (details.size() < MAX_LISTED) details.add("\"" + text(buffer, start, Math.min(end, start + 80)) + "\"");
+        }
+
+        // Splits [start, end) into comma-separated fields; returns how many (at most MAX_FIELDS)
+        int split(ByteBuffer buffer, int start, int end) {
+            int n = 0;
+            starts[0] = start;
+            for (int i = start; i < end && n < MAX_FIELDS - 1; i++) {
+                if (buffer.get(i) == ',') {
+                    ends[n++] = i;
+                    starts[n] = i + 1;
+                }
+            }
+            ends[n] = end;
+            return n + 1;
+        }
+
+        Field field(ByteBuffer buffer, int i) {
+            return field.set(buffer, starts[i], ends[i]);
+        }
+
+        abstract void line(int line, ByteBuffer buffer, int start, int end);
+
+        void done() {
+        }
+    }
+
+    private <C extends Chunk> List<C> scan(ExecutorService pool, String file, FileReport report, Callable<C> newChunk) throws IOException {
+        Path path = dataDir.resolve(file);
+        List<C> chunks = new ArrayList<>();
+        if (!Files.exists(path)) return chunks;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            report.bytes = size;
+            List<Future<C>> futures = new ArrayList<>();
+            for (long start = 0; start < size; ) {
+                long end = lineBoundary(channel, Math.min(size, start + chunkBytes), size);
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                futures.add(pool.submit(() -> {
+                    C chunk = newChunk.call();
+                    parseLines(chunk, buffer);
+                    chunk.done();
+                    return chunk;
+                }));
+                start = end;
+            }
+            for (Future<C> future : futures) chunks.add(future.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Scrub interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Error scanning " + file, e.getCause());
+        } catch (Exception e) {
+            if (e instanceof IOException) throw (IOException) e;
+            throw new IOException("Error scanning " + file, e);
+        }
+        long base = 0;
+        for (C chunk : chunks) {
+            for (int i = 0; i < chunk.problemCount; i++) {
+                long p = chunk.problems[i];
+                report.add(base + (p >>> 3) + 1, Problem.values()[(int) (p & 7)], i < chunk.details.size() ? chunk.details.get(i) : null);
+            }
+            base += chunk.lines;
+        }
+        report.lines = base;
+        return chunks;
+    }
+
+    // Position just after the first '\n' at or after `from` (or the end of the file)
+    private static long lineBoundary(FileChannel channel, long from, long size) throws IOException {
+        if (from >= size) return size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (long pos = from - 1; pos < size; pos += probe.limit()) {
+            probe.clear();
+            if (channel.read(probe, pos) <= 0) return size;
+            probe.flip();
+            for (int i = 0; i < probe.limit(); i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+        }
+        return size;
+    }
+
+    private static void parseLines(Chunk chunk, ByteBuffer buffer) {
+        int limit = buffer.limit();
+        int start = 0;
+        for (int i = 0; i <= limit; i++) {
+            if (i == limit && start == limit) break; // file ended with '\n'
+            if (i == limit || buffer.get(i) == '\n') {
+                int end = i > start && buffer.get(i - 1) == '\r' ? i - 1 : i;
+                chunk.line(chunk.lines++, buffer, start, end);
+                start = i + 1;
+            }
+        }
+    }
+
+    // ---- vehicles and customers ----
+
+    // Keys in file order, with their chunk-relative lines
+    private abstract static class KeyChunk extends Chunk {
+        long[] keys = new long[1024];
+        int[] keyLines = new int[1024];
+        int count;
+
+        void key(long key, int line) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                keyLines = Arrays.copyOf(keyLines, count * 2);
+            }
+            keys[count] = key;
+            keyLines[count++] = line;
+        }
+    }
+
+    // plate,make,model,year,status[,type,attributes...]
+    private static final class VehicleChunk extends KeyChunk {
+        @Override
+        void line(int line, ByteBuffer buffer, int start, int end) {
+            int n = split(buffer, start, end);
+            long plate = n >= 5 ? PlateCodec.encode(field(buffer, 0)) : PlateCodec.INVALID;
+            if (plate == PlateCodec.INVALID || !isInt(field(buffer, 3)) || !isStatus(field(buffer, 4))
+                || (n > 5 && !isTyped(buffer, n))) {
+                problem(line, Problem.MALFORMED, buffer, start, end);
+                return;
+            }
+            key(plate, line);
+        }
+
+        // The type columns RentalSystem.parseVehicle accepts
+        private boolean isTyped(ByteBuffer buffer, int n) {
+            String type = field(buffer, 5).toString();
+            switch (type) {
+                case "Car": return n >= 7 && isInt(field(buffer, 6));
+                case "SportCar": return n >= 9 && isInt(field(buffer, 6)) && isInt(field(buffer, 7));
+                case "Minibus": return n >= 7;
+                case "PickupTruck":
+                    try {
+                        return n >= 8 && Double.parseDouble(field(buffer, 6).toString()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                default: return false;
+            }
+        }
+    }
+
+    // id,name
+    private static final class CustomerChunk extends KeyChunk {
+        @Override
+        void line(int line, ByteBuffer buffer, int start, int end) {
+            int n = split(buffer, start, end);
+            if (n < 2 || !isInt(field(buffer, 0))) {
+                problem(line, Problem.MALFORMED, buffer, start, end);
+                return;
+            }
+            key(Integer.parseInt(field(buffer, 0), 0, ends[0] - starts[0], 10), line);
+        }
+    }
+
+    // Flags repeats of a key (the first occurrence wins) and returns the distinct keys
+    private static KeyIndex mergeKeys(FileReport report, java.util.function.LongFunction<String> name, List<? extends KeyChunk> chunks) {
+        Set<Long> seen = new LinkedHashSet<>();
+        long base = 0;
+        for (KeyChunk chunk : chunks) {
+            for (int i = 0; i < chunk.count; i++) {
+                if (!seen.add(chunk.keys[i])) report.add(base + chunk.keyLines[i] + 1, Problem.DUPLICATE, name.apply(chunk.keys[i]));
+            }
+            base += chunk.lines;
+        }
+        return new KeyIndex(seen);
+    }
+
+    // Open-addressing set of keys, each with a dense index 0..size-1. One probe is usually
+    // one cache miss, where a binary search over a large sorted array takes a dozen or more.
+    private static final class KeyIndex {
+        private final long[] slots; // key + 1, 0 for empty
+        private final int[] index;
+        final long[] keys;
+
+        KeyIndex(Collection<Long> distinct) {
+            int capacity = Integer.highestOneBit(Math.max(4, distinct.size()) * 4 - 1);
+            slots = new long[capacity];
+            index = new int[capacity];
+            keys = new long[distinct.size()];
+            int i = 0;
+            for (long key : distinct) {
+                int slot = slot(key);
+                while (slots[slot] != 0) slot = (slot + 1) & (slots.length - 1);
+                slots[slot] = key + 1;
+                index[slot] = i;
+                keys[i++] = key;
+            }
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        // Index of the key, or -1
+        int indexOf(long key) {
+            for (int slot = slot(key); slots[slot] != 0; slot = (slot + 1) & (slots.length - 1)) {
+                if (slots[slot] == key + 1) return index[slot];
+            }
+            return -1;
+        }
+
+        private int slot(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & (slots.length - 1);
+        }
+    }
+
+    // ---- rental records ----
+
+    // plate,customerId,date,amount,RENT|RETURN[,dueDate]
+    private static final class RecordChunk extends Chunk {
+        final KeyIndex plates;
+        final KeyIndex customers;
+        // per plate, by index in `plates`: line + 1 of its first record here (0 if none), and
+        // the first and last type; packed into `touched`/`summary` once the chunk is parsed
+        int[] firstLine;
+        byte[] types;
+        int[] touched;
+        long[] summary; // first line << 4 | first type << 2 | last type
+
+        RecordChunk(KeyIndex plates, KeyIndex customers) {
+            this.plates = plates;
+            this.customers = customers;
+            this.firstLine = new int[plates.size()];
+            this.types = new byte[plates.size()];
+        }
+
+        @Override
+        void line(int line, ByteBuffer buffer, int start, int end) {
+            int n = split(buffer, start, end);
+            long plate = n >= 5 ? PlateCodec.encode(field(buffer, 0)) : PlateCodec.INVALID;
+            Field type = n >= 5 ? field(buffer, 4) : null;
+            int kind = type == null ? 0 : "RENT".contentEquals(type) ? RENT : "RETURN".contentEquals(type) ? RETURN : 0;
+            if (plate == PlateCodec.INVALID || kind == 0 || !isInt(field(buffer, 1)) || !isDate(field(buffer, 2))
+                || !isAmount(field(buffer, 3)) || (n > 5 && !isDate(field(buffer, 5)))) {
+                problem(line, Problem.MALFORMED, buffer, start, end);
+                return;
+            }
+            int vehicle = plates.indexOf(plate);
+            if (vehicle < 0) {
+                problem(line, Problem.ORPHAN_VEHICLE, buffer, start, end);
+                return;
+            }
+            if (customers.indexOf(Integer.parseInt(field(buffer, 1), 0, ends[1] - starts[1], 10)) < 0) {
+                problem(line, Problem.ORPHAN_CUSTOMER, buffer, start, end);
+                return;
+            }
+            if (firstLine[vehicle] == 0) {
+                firstLine[vehicle] = line + 1;
+                types[vehicle] = (byte) (kind << 2 | kind);
+                return;
+            }
+            // a rejected line leaves the plate's state as it was, which is still `kind`
+            if ((types[vehicle] & 3) == kind) problem(line, kind == RENT ? Problem.RENT_WHILE_RENTED : Problem.RETURN_WITHOUT_RENT, buffer, start, end);
+            types[vehicle] = (byte) (types[vehicle] & ~3 | kind);
+        }
+
+        // Keeps only the plates this chunk touched, so finished chunks stay small
+        @Override
+        void done() {
+            int count = 0;
+            for (int v : firstLine) if (v != 0) count++;
+            touched = new int[count];
+            summary = new long[count];
+            for (int i = 0, j = 0; i < firstLine.length; i++) {
+                if (firstLine[i] == 0) continue;
+                touched[j] = i;
+                summary[j++] = (long) (firstLine[i] - 1) << 4 | types[i];
+            }
+            firstLine = null;
+            types = null;
+        }
+    }
+
+    // Checks each chunk's first record per plate against the state the earlier chunks left;
+    // lastType is by index in `plates`, 0 before the plate's first record
+    private static void mergeSequences(FileReport report, List<RecordChunk> chunks, KeyIndex plates, byte[] lastType) {
+        long base = 0;
+        for (RecordChunk chunk : chunks) {
+            for (int i = 0; i < chunk.touched.length; i++) {
+                int vehicle = chunk.touched[i];
+                long s = chunk.summary[i];
+                int first = (int) (s >> 2 & 3);
+                int before = lastType[vehicle];
+                if (first == RETURN && before != RENT) {
+                    report.add(base + (s >>> 4) + 1, Problem.RETURN_WITHOUT_RENT, "plate " + PlateCodec.decode(plates.keys[vehicle]));
+                } else if (first == RENT && before == RENT) {
+                    report.add(base + (s >>> 4) + 1, Problem.RENT_WHILE_RENTED, "plate " + PlateCodec.decode(plates.keys[vehicle]));
+                }
+                lastType[vehicle] = (byte) (s & 3);
+            }
+            base += chunk.lines;
+        }
+    }
+
+    // ---- field checks, on bytes without creating Strings ----
+
+    private static boolean isInt(Field f) {
+        try {
+            Integer.parseInt(f, 0, f.length(), 10);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    // yyyy-mm-dd, a real date
+    private static boolean isDate(Field f) {
+        if (f.length() != 10 || f.charAt(4) != '-' || f.charAt(7) != '-') return false;
+        int year = digits(f, 0, 4), month = digits(f, 5, 7), day = digits(f, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) return false;
+        if (day <= 28) return true;
+        try {
+            LocalDate.of(year, month, day);
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+
+    private static int digits(Field f, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = f.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isAmount(Field f) {
+        try {
+            Money.parse(f);
+            return true;
+        } catch (RuntimeException e) { // NumberFormatException, or ArithmeticException past a long
+            return false;
+        }
+    }
+
+    private static boolean isStatus(Field f) {
+        for (Vehicle.VehicleStatus status : Vehicle.VehicleStatus.values()) {
+            if (status.name().contentEquals(f)) return true;
+        }
+        return false;
+    }
+
+    private static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1);
+    }
+
+    // Reusable ISO-8859-1 view of a field in a mapped chunk
+    private static final class Field implements CharSequence {
+        private ByteBuffer buffer;
+        private int start;
+        private int end;
+
+        Field set(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return text(buffer, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text(buffer, start, end);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DataScrubberTest {
+    private Path dataDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("scrubber-test");
+        write(RentalSystem.VEHICLES_FILE,
+            "AAA100,Toyota,Corolla,2020,Available,Car,5",
+            "BBB200,Ford,Transit,2021,Available,Minibus,true",
+            "AAA100,Toyota,Corolla,2020,Available,Car,5",              // 3: duplicate
+            "CCC3,Bad,Line,2020,Available",                             // 4: malformed plate
+            "DDD400,Ford,F150,2021,Available,PickupTruck,1.5,false");
+        write(RentalSystem.CUSTOMERS_FILE,
+            "1,Ann",
+            "2,Bob",
+            "x,Bad");                                                   // 3: malformed id
+        write(RentalSystem.RECORDS_ARCHIVE_FILE,
+            "AAA100,1,2024-01-01,50.00,RENT",
+            "AAA100,1,2024-01-03,0.00,RETURN",
+            "BBB200,2,2024-01-05,80.00,RENT");
+        write(RentalSystem.RECORDS_FILE,
+            "BBB200,2,2024-01-06,80.00,RENT",                           // 1: still rented from the archive
+            "AAA100,1,2024-02-01,50.00,RENT,2024-02-03",
+            "ZZZ999,1,2024-02-01,50.00,RENT",                           // 3: unknown plate
+            "DDD400,9,2024-02-01,50.00,RENT",                           // 4: unknown customer
+            "DDD400,1,2024-02-02,0.00,RETURN",                          // 5: its RENT was dropped
+            "AAA100,1,2024-02-02,oops,RETURN",                          // 6: malformed amount
+            "AAA100,1,2024-02-03,0.00,RETURN",
+            "AAA100,1,2024-02-04,0.00,RETURN",                          // 8: returned twice
+            "BBB200,2,2024-02-05,0.00,RETURN");
+    }
+
+    private void write(String file, String... lines) throws IOException {
+        Files.writeString(dataDir.resolve(file), String.join("\n", lines) + "\n");
+    }
+
+    private static DataScrubber.FileReport file(DataScrubber.Report report, String name) {
+        for (DataScrubber.FileReport f : report.files) {
+            if (f.file.equals(name)) return f;
+        }
+        throw new AssertionError("No report for " + name);
+    }
+
+    // "file:line: PROBLEM" of each listed problem, without the line text
+    private static List<String> problems(DataScrubber.FileReport f) {
+        List<String> result = new ArrayList<>();
+        for (String example : f.examples) {
+            String[] words = example.split(" ");
+            result.add(words[0] + " " + words[1]);
+        }
+        return result;
+    }
+
+    private void assertFixtureProblems(DataScrubber.Report report) {
+        assertEquals(List.of("vehicles.txt:3: DUPLICATE", "vehicles.txt:4: MALFORMED"),
+            problems(file(report, RentalSystem.VEHICLES_FILE)));
+        assertEquals(List.of("customers.txt:3: MALFORMED"), problems(file(report, RentalSystem.CUSTOMERS_FILE)));
+        assertEquals(0, file(report, RentalSystem.RECORDS_ARCHIVE_FILE).problems());
+        assertEquals(List.of(
+            "rental_records.txt:1: RENT_WHILE_RENTED",
+            "rental_records.txt:3: ORPHAN_VEHICLE",
+            "rental_records.txt:4: ORPHAN_CUSTOMER",
+            "rental_records.txt:5: RETURN_WITHOUT_RENT",
+            "rental_records.txt:6: MALFORMED",
+            "rental_records.txt:8: RETURN_WITHOUT_RENT"), problems(file(report, RentalSystem.RECORDS_FILE)));
+        assertEquals(9, report.problems());
+        assertEquals(9, file(report, RentalSystem.RECORDS_FILE).lines);
+    }
+
+    @Test
+    public void testFindsEveryFaultInOneChunk() throws IOException {
+        assertFixtureProblems(new DataScrubber(dataDir, 1).check());
+    }
+
+    @Test
+    public void testFaultsAcrossChunkBoundaries() throws IOException {
+        // 64-byte chunks hold about two lines each, so sequences continue across chunks
+        // and from the archive into the live file
+        assertFixtureProblems(new DataScrubber(dataDir, 4, 64).check());
+        assertFixtureProblems(new DataScrubber(dataDir, 2, 100).check());
+    }
+
+    @Test
+    public void testRepairDropsOnlyReportedLines() throws IOException {
+        DataScrubber scrubber = new DataScrubber(dataDir, 4, 64);
+        List<Path> written = scrubber.repair(scrubber.check());
+
+        assertEquals(3, written.size()); // the archive has no problems
+        assertFalse(Files.exists(dataDir.resolve(RentalSystem.RECORDS_ARCHIVE_FILE + ".repaired")));
+        assertEquals(List.of(
+            "AAA100,Toyota,Corolla,2020,Available,Car,5",
+            "BBB200,Ford,Transit,2021,Available,Minibus,true",
+            "DDD400,Ford,F150,2021,Available,PickupTruck,1.5,false"),
+            Files.readAllLines(dataDir.resolve(RentalSystem.VEHICLES_FILE + ".repaired")));
+        assertEquals(List.of("1,Ann", "2,Bob"), Files.readAllLines(dataDir.resolve(RentalSystem.CUSTOMERS_FILE + ".repaired")));
+        assertEquals(List.of(
+            "AAA100,1,2024-02-01,50.00,RENT,2024-02-03",
+            "AAA100,1,2024-02-03,0.00,RETURN",
+            "BBB200,2,2024-02-05,0.00,RETURN"),
+            Files.readAllLines(dataDir.resolve(RentalSystem.RECORDS_FILE + ".repaired")));
+
+        // The repaired files check clean
+        for (Path repaired : written) {
+            Files.move(repaired, dataDir.resolve(repaired.getFileName().toString().replace(".repaired", "")),
+                StandardCopyOption.REPLACE_EXISTING);
+        }
+        assertEquals(0, new DataScrubber(dataDir, 4, 64).check().problems());
+    }
+}
@@ -0,0 +1,240 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Simulates N front desks running the VehicleRentalApp flows at once against an
+// in-process RentalSystem with its own data directory. Each clerk is a virtual thread
+// that picks operations by weight (add customer, browse available, rent, return, view
+// history) and waits a random think time between them. It reports throughput and
+// p50/p99/p999 per operation.
+//
+// Correctness is checked while it runs: every successful rent must find the vehicle
+// unheld, and every return of a vehicle the clerk holds must succeed. At the end the
+// history written by this run is audited for a RENT directly after a RENT (or RETURN
+// after RETURN) of the same vehicle. RentalSystem's per-operation console output is
+// discarded during the run. Without a dataDir each run gets a fresh temp directory.
+//   java FrontDeskLoadTest [clerks] [seconds] [thinkMillis] [mix] [fleet] [dataDir]
+//   mix defaults to add=5,browse=40,rent=25,return=25,history=5
+public class FrontDeskLoadTest {
+    private enum Op { ADD_CUSTOMER, BROWSE, RENT, RETURN, HISTORY }
+
+    private final RentalSystem rentalSystem;
+    private final int clerks;
+    private final int thinkMillis;
+    private final int[] weights = new int[Op.values().length];
+    private final LatencyStats[] latencies = new LatencyStats[Op.values().length];
+    private final AtomicInteger[] failures = new AtomicInteger[Op.values().length]; // refused, not wrong
+    private final Map<Long, Integer> heldBy = new ConcurrentHashMap<>(); // plate key -> clerk
+    private final List<String> violations = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger nextCustomerId = new AtomicInteger(100_000);
+    private final LocalDate today = LocalDate.now();
+    private int historyStart; // records before this index predate the run and are not audited
+
+    public FrontDeskLoadTest(RentalSystem rentalSystem, int clerks, int thinkMillis, String mix) {
+        this.rentalSystem = rentalSystem;
+        this.clerks = clerks;
+        this.thinkMillis = thinkMillis;
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyStats();
+            failures[i] = new AtomicInteger();
+        }
+        for (String part : mix.split(",")) {
+            String[] kv = part.split("=");
+            weights[opOf(kv[0].trim()).ordinal()] = Integer.parseInt(kv[1].trim());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clerks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        String mix = args.length > 3 ? args[3] : "add=5,browse=40,rent=25,return=25,history=5";
+        int fleet = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+        Path dataDir = args.length > 5 ? Paths.get(args[5]) : Files.createTempDirectory("frontdesk-");
+
+        RentalSystem rentalSystem = RentalSystem.open(dataDir);
+        FrontDeskLoadTest test = new FrontDeskLoadTest(rentalSystem, clerks, thinkMillis, mix);
+        test.seed(fleet);
+        test.run(seconds);
+        int violations = test.report();
+        System.exit(violations == 0 ? 0 : 1);
+    }
+
+    private static Op opOf(String name) {
+        switch (name.toLowerCase()) {
+            case "add": return Op.ADD_CUSTOMER;
+            case "browse": return Op.BROWSE;
+            case "rent": return Op.RENT;
+            case "return": return Op.RETURN;
+            case "history": return Op.HISTORY;
+            default: throw new IllegalArgumentException("Unknown operation in mix: " + name);
+        }
+    }
+
+    // Tops the fleet up to `fleet` cars (FDA000, FDA001, ...) and gives every clerk a customer
+    public void seed(int fleet) {
+        PrintStream console = muteConsole();
+        try {
+            for (int i = 0; i < fleet; i++) {
+                if (rentalSystem.findVehicleByPlate(plate(i)) != null) continue;
+                Car car = new Car("Toyota", "Corolla", 2020, 5);
+                car.setLicensePlate(plate(i));
+                rentalSystem.addVehicle(car);
+            }
+            for (int clerk = 0; clerk < clerks; clerk++) {
+                if (rentalSystem.findCustomerById(clerk) == null) rentalSystem.addCustomer(new Customer(clerk, "Desk " + clerk));
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static String plate(int i) {
+        return String.format("FD%c%03d", (char) ('A' + i / 1000), i % 1000);
+    }
+
+    public void run(int seconds) throws InterruptedException {
+        historyStart = rentalSystem.getRentalHistoryCount();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        PrintStream console = muteConsole();
+        try (ExecutorService desks = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int clerk = 0; clerk < clerks; clerk++) {
+                int id = clerk;
+                desks.submit(() -> runDesk(id, deadline));
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private Void runDesk(int clerk, long deadline) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Customer customer = rentalSystem.findCustomerById(clerk);
+        Deque<Vehicle> rented = new ArrayDeque<>(); // vehicles this desk currently has out
+        int totalWeight = Arrays.stream(weights).sum();
+        while (System.nanoTime() < deadline) {
+            int pick = random.nextInt(totalWeight);
+            Op op = Op.values()[0];
+            for (Op candidate : Op.values()) {
+                pick -= weights[candidate.ordinal()];
+                if (pick < 0) {
+                    op = candidate;
+                    break;
+                }
+            }
+            long start = System.nanoTime();
+            boolean ok = perform(op, clerk, customer, rented, random);
+            latencies[op.ordinal()].record(System.nanoTime() - start);
+            if (!ok) failures[op.ordinal()].incrementAndGet();
+            // virtual threads are not preempted, so a desk with no think time must yield
+            if (thinkMillis > 0) Thread.sleep(random.nextInt(2 * thinkMillis + 1));
+            else Thread.yield();
+        }
+        return null;
+    }
+
+    private boolean perform(Op op, int clerk, Customer customer, Deque<Vehicle> rented, ThreadLocalRandom random) {
+        switch (op) {
+            case ADD_CUSTOMER: {
+                int id = nextCustomerId.getAndIncrement();
+                return rentalSystem.addCustomer(new Customer(id, "Walk-in " + id));
+            }
+            case BROWSE:
+                return !rentalSystem.snapshot().getVehicles(Vehicle.VehicleStatus.Available).isEmpty();
+            case RENT: {
+                List<Vehicle> fleet = rentalSystem.snapshot().getVehicles();
+                Vehicle vehicle = fleet.get(random.nextInt(fleet.size()));
+                if (vehicle.getStatus() != Vehicle.VehicleStatus.Available) return false; // the desk would pick another
+                if (!rentalSystem.rentVehicleCents(vehicle, customer, today, 49_99)) return false; // lost the race
+                Integer holder = heldBy.putIfAbsent(vehicle.getPlateKey(), clerk);
+                if (holder != null) {
+                    violations.add("Double rental: " + vehicle.getLicensePlate() + " rented by desk " + clerk + " while desk " + holder + " holds it");
+                } else {
+                    rented.add(vehicle);
+                }
+                return true;
+            }
+            case RETURN: {
+                Vehicle vehicle = rented.poll();
+                if (vehicle == null) return false;
+                heldBy.remove(vehicle.getPlateKey(), clerk); // before the return, so a quick re-rent is not flagged
+                if (!rentalSystem.returnVehicleCents(vehicle, customer, today, 0)) {
+                    violations.add("Lost rental: desk " + clerk + " could not return " + vehicle.getLicensePlate());
+                    return false;
+                }
+                return true;
+            }
+            case HISTORY:
+                return random.nextBoolean()
+                    ? !rentalSystem.getRentalRecordsByCustomer(customer.getCustomerName()).isEmpty()
+                    : !rentalSystem.getRentalRecordsByVehicle(rentalSystem.snapshot().getVehicles().get(0).getLicensePlate()).isEmpty();
+            default:
+                return false;
+        }
+    }
+
+    // Prints the results and returns the number of correctness violations
+    public int report() {
+        long total = 0;
+        System.out.println("Mix: " + mix());
+        System.out.printf("%-14s %10s %10s %12s %12s %12s %10s%n", "operation", "count", "refused", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Op op : Op.values()) {
+            LatencyStats stats = latencies[op.ordinal()];
+            if (stats.count() == 0) continue;
+            total += stats.count();
+            System.out.printf("%-14s %,10d %,10d %12.3f %12.3f %12.3f %10.1f%n", op, stats.count(), failures[op.ordinal()].get(),
+                stats.percentile(50) / 1e6, stats.percentile(99) / 1e6, stats.percentile(99.9) / 1e6, stats.percentile(100) / 1e6);
+        }
+        auditHistory();
+        System.out.printf("%,d clerks, %,d operations%n", clerks, total);
+        if (violations.isEmpty()) {
+            System.out.println("No correctness violations.");
+        } else {
+            System.out.println(violations.size() + " correctness violation(s):");
+            for (String v : violations.subList(0, Math.min(20, violations.size()))) System.out.println("  " + v);
+        }
+        return violations.size();
+    }
+
+    // Per vehicle, this run's RENT and RETURN records must alternate; the vehicle's status
+    // must match whoever the harness thinks holds it. Records from earlier runs in the same
+    // data directory are skipped: vehicles.txt reloads those vehicles as Available.
+    private void auditHistory() {
+        RentalSnapshot snapshot = rentalSystem.snapshot();
+        Map<Long, String> lastType = new HashMap<>();
+        List<RentalRecord> history = snapshot.getRentalHistory();
+        for (RentalRecord record : history.subList(Math.min(historyStart, history.size()), history.size())) {
+            String previous = lastType.put(record.getVehicle().getPlateKey(), record.getRecordType());
+            if (record.getRecordType().equals(previous)) {
+                violations.add("History has " + previous + " twice in a row for " + record.getVehicle().getLicensePlate());
+            }
+        }
+        for (Vehicle v : snapshot.getVehicles()) {
+            boolean held = heldBy.containsKey(v.getPlateKey());
+            if (held != (snapshot.statusOf(v) == Vehicle.VehicleStatus.Rented) && lastType.containsKey(v.getPlateKey())) {
+                violations.add(v.getLicensePlate() + " is " + snapshot.statusOf(v) + " but " + (held ? "held by a desk" : "held by no desk"));
+            }
+        }
+    }
+
+    private static PrintStream muteConsole() {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        return console;
+    }
+
+    private String mix() {
+        StringBuilder sb = new StringBuilder();
+        for (Op op : Op.values()) sb.append(op).append('=').append(weights[op.ordinal()]).append(' ');
+        return sb.toString().trim();
+    }
+}
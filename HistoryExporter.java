@@ -0,0 +1,206 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.GZIPOutputStream;
+
+// Streams rental history to CSV or JSON Lines for audits. The records come from a
+// snapshot, so the export is consistent and needs no lock. Chunks of records are encoded
+// in parallel and written in order through a FileChannel, optionally gzipped. At most
+// 2 x threads encoded chunks are in flight, so memory stays constant however long the history is.
+//   java HistoryExporter <file> [--format csv|jsonl] [--gzip] [--from 2025-01-01] [--to 2025-12-31]
+//                               [--plate ABC123] [--customer 42]
+public class HistoryExporter {
+    public enum Format { CSV, JSON_LINES }
+
+    private static final int CHUNK_RECORDS = 8192;
+    private static final String CSV_HEADER = "type,plate,customer_id,customer_name,date,amount,due\n";
+
+    private Format format = Format.CSV;
+    private boolean gzip;
+    private LocalDate from;  // null bounds are open
+    private LocalDate to;
+    private long plateKey = PlateCodec.INVALID; // INVALID = any vehicle
+    private Integer customerId;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static class Stats {
+        public long recordsScanned;
+        public long recordsWritten;
+        public long bytesEncoded; // before compression
+        public long bytesWritten;
+        public long nanos;
+
+        @Override
+        public String toString() {
+            return String.format("scanned %,d records, wrote %,d (%,d bytes encoded, %,d on disk), %.1f ms (%,.0f records/s)",
+                recordsScanned, recordsWritten, bytesEncoded, bytesWritten, nanos / 1e6,
+                recordsScanned / Math.max(nanos / 1e9, 1e-9));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java HistoryExporter <file> [--format csv|jsonl] [--gzip] [--from date] [--to date] [--plate plate] [--customer id]");
+            return;
+        }
+        HistoryExporter exporter = new HistoryExporter();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format": exporter.format("jsonl".equalsIgnoreCase(args[++i]) ? Format.JSON_LINES : Format.CSV); break;
+                case "--gzip": exporter.gzip(true); break;
+                case "--from": exporter.from(LocalDate.parse(args[++i])); break;
+                case "--to": exporter.to(LocalDate.parse(args[++i])); break;
+                case "--plate": exporter.plate(args[++i]); break;
+                case "--customer": exporter.customer(Integer.parseInt(args[++i])); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        System.out.println(exporter.export(RentalSystem.getInstance(), Paths.get(args[0])));
+    }
+
+    public HistoryExporter format(Format format) {
+        this.format = format;
+        return this;
+    }
+
+    public HistoryExporter gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    public HistoryExporter from(LocalDate from) {
+        this.from = from;
+        return this;
+    }
+
+    public HistoryExporter to(LocalDate to) {
+        this.to = to;
+        return this;
+    }
+
+    public HistoryExporter plate(String plate) {
+        long key = PlateCodec.encode(plate);
+        if (key == PlateCodec.INVALID) throw new IllegalArgumentException("Invalid plate: " + plate);
+        this.plateKey = key;
+        return this;
+    }
+
+    public HistoryExporter customer(int customerId) {
+        this.customerId = customerId;
+        return this;
+    }
+
+    public HistoryExporter threads(int threads) {
+        this.threads = Math.max(1, threads);
+        return this;
+    }
+
+    public Stats export(RentalSystem rentalSystem, Path out) throws IOException {
+        return export(rentalSystem.snapshot().getRentalHistory(), out);
+    }
+
+    // `records` must not change during the export (a snapshot list)
+    public Stats export(List<RentalRecord> records, Path out) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        ExecutorService encoders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "history-export");
+            t.setDaemon(true);
+            return t;
+        });
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream sink = gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), 1 << 16) : null) {
+            if (format == Format.CSV) write(CSV_HEADER.getBytes(StandardCharsets.UTF_8), channel, sink, stats);
+
+            // chunks are submitted in order and written in order; the window bounds memory
+            ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+            int window = threads * 2;
+            for (int chunkStart = 0; chunkStart < records.size(); chunkStart += CHUNK_RECORDS) {
+                List<RentalRecord> chunk = records.subList(chunkStart, Math.min(records.size(), chunkStart + CHUNK_RECORDS));
+                inFlight.add(encoders.submit(() -> encode(chunk, stats)));
+                if (inFlight.size() >= window) write(take(inFlight), channel, sink, stats);
+            }
+            while (!inFlight.isEmpty()) write(take(inFlight), channel, sink, stats);
+            if (sink != null) sink.flush();
+        } finally {
+            encoders.shutdownNow();
+        }
+        stats.recordsScanned = records.size();
+        stats.bytesWritten = Files.size(out);
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static byte[] take(ArrayDeque<Future<byte[]>> inFlight) throws IOException {
+        try {
+            return inFlight.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Error encoding history", e.getCause());
+        }
+    }
+
+    private static void write(byte[] bytes, FileChannel channel, OutputStream sink, Stats stats) throws IOException {
+        stats.bytesEncoded += bytes.length;
+        if (sink != null) {
+            sink.write(bytes);
+        } else {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private byte[] encode(List<RentalRecord> chunk, Stats stats) {
+        StringBuilder sb = new StringBuilder(chunk.size() * 80);
+        int written = 0;
+        for (RentalRecord record : chunk) {
+            if (!matches(record)) continue;
+            written++;
+            Customer customer = record.getCustomer();
+            LocalDate due = record.getDueDate(); // RENT records only
+            if (format == Format.CSV) {
+                sb.append(record.getRecordType()).append(',')
+                  .append(record.getVehicle().getLicensePlate()).append(',')
+                  .append(customer.getCustomerId()).append(',')
+                  .append(csv(customer.getCustomerName())).append(',')
+                  .append(record.getRecordDate()).append(',')
+                  .append(Money.format(record.getAmountCents())).append(',')
+                  .append(due == null ? "" : due.toString()).append('\n');
+            } else {
+                sb.append("{\"type\":\"").append(record.getRecordType())
+                  .append("\",\"plate\":\"").append(record.getVehicle().getLicensePlate())
+                  .append("\",\"customerId\":").append(customer.getCustomerId())
+                  .append(",\"customer\":").append(RentalHttpServer.quote(customer.getCustomerName()))
+                  .append(",\"date\":\"").append(record.getRecordDate())
+                  .append("\",\"amount\":").append(Money.format(record.getAmountCents()))
+                  .append(",\"due\":").append(due == null ? "null" : "\"" + due + "\"").append("}\n");
+            }
+        }
+        synchronized (stats) {
+            stats.recordsWritten += written;
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private boolean matches(RentalRecord record) {
+        LocalDate date = record.getRecordDate();
+        return (from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))
+            && (plateKey == PlateCodec.INVALID || record.getVehicle().getPlateKey() == plateKey)
+            && (customerId == null || record.getCustomer().getCustomerId() == customerId);
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
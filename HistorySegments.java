@@ -0,0 +1,344 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+// Binary, segmented form of rental_records.txt. Each segment holds up to
+// SEGMENT_RECORDS records and starts with its own plate dictionary; a record is then
+//   varint (plate index << 1 | RETURN bit), zigzag varint epoch-day delta from the
+//   previous record (the first from the segment's first day), varint customer id,
+//   zigzag varint amount in cents, varint due date (0 = none, else zigzag days after
+//   the record's date + 1)
+// An index at the end of the file keeps each segment's offset, record count, first day
+// and min/max date and customer id, so a filtered scan skips whole segments unread.
+//
+// File: "RHS2" | segments | index (INDEX_ENTRY_BYTES per segment) | segment count (int),
+//       index offset (long), "RHS2"
+//   java HistorySegments convert <rental_records.txt> <rental_records.seg>
+//   java HistorySegments scan <rental_records.seg> [--from date] [--to date] [--customer id]
+public class HistorySegments {
+    public static final String FILE = "rental_records.seg";
+    public static final int SEGMENT_RECORDS = 1 << 16;
+
+    public static final int NO_DUE_DATE = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x52485332; // "RHS2"
+    private static final int INDEX_ENTRY_BYTES = 36;
+    private static final int TRAILER_BYTES = 16;
+
+    // Records as they are decoded; no objects are created per record
+    public interface Visitor {
+        void record(long plateKey, int customerId, int epochDay, boolean rent, long amountCents, int dueDay);
+    }
+
+    public static class Stats {
+        public long records;
+        public long malformed;   // text lines that could not be converted
+        public int segments;
+        public int segmentsSkipped;
+        public long bytesIn;
+        public long bytesOut;
+        public long nanos;
+
+        @Override
+        public String toString() {
+            return String.format("%,d records, %d segments (%d skipped), %,d -> %,d bytes, %.1f ms%s",
+                records, segments, segmentsSkipped, bytesIn, bytesOut, nanos / 1e6,
+                malformed > 0 ? String.format(", %,d malformed lines", malformed) : "");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("convert")) {
+            System.out.println(convert(Paths.get(args[1]), Paths.get(args[2])));
+        } else if (args.length >= 2 && args[0].equals("scan")) {
+            LocalDate from = null, to = null;
+            Integer customer = null;
+            for (int i = 2; i + 1 < args.length; i += 2) {
+                switch (args[i]) {
+                    case "--from": from = LocalDate.parse(args[i + 1]); break;
+                    case "--to": to = LocalDate.parse(args[i + 1]); break;
+                    case "--customer": customer = Integer.parseInt(args[i + 1]); break;
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            long[] cents = new long[1];
+            Stats stats = scan(Paths.get(args[1]), from, to, customer, (plate, id, day, rent, amount, due) -> cents[0] += amount);
+            System.out.println(stats + ", total $" + Money.format(cents[0]));
+        } else {
+            System.out.println("Usage: java HistorySegments convert <records.txt> <records.seg> | scan <records.seg> [--from date] [--to date] [--customer id]");
+        }
+    }
+
+    // Streams a rental_records.txt file into segments; lines that do not parse, or whose
+    // type is not RENT or RETURN, are counted and skipped
+    public static Stats convert(Path text, Path out) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        try (BufferedReader reader = Files.newBufferedReader(text); Writer writer = new Writer(out, stats)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                long plateKey = parts.length >= 5 ? PlateCodec.encode(parts[0]) : PlateCodec.INVALID;
+                if (plateKey == PlateCodec.INVALID) {
+                    stats.malformed++;
+                    continue;
+                }
+                String type = parts[4].trim();
+                if (!type.equals("RENT") && !type.equals("RETURN")) {
+                    stats.malformed++;
+                    continue;
+                }
+                try {
+                    writer.add(plateKey, Integer.parseInt(parts[1]), (int) LocalDate.parse(parts[2]).toEpochDay(),
+                        type.equals("RENT"), Money.parse(parts[3]),
+                        parts.length > 5 ? (int) LocalDate.parse(parts[5]).toEpochDay() : NO_DUE_DATE);
+                } catch (RuntimeException e) {
+                    stats.malformed++;
+                }
+            }
+        }
+        stats.bytesIn = Files.size(text);
+        stats.bytesOut = Files.size(out);
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    public static Stats write(List<RentalRecord> records, Path out) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        try (Writer writer = new Writer(out, stats)) {
+            for (RentalRecord r : records) {
+                writer.add(r.getVehicle().getPlateKey(), r.getCustomer().getCustomerId(), (int) r.getRecordDate().toEpochDay(),
+                    "RENT".equals(r.getRecordType()), r.getAmountCents(),
+                    r.getDueDate() == null ? NO_DUE_DATE : (int) r.getDueDate().toEpochDay());
+            }
+        }
+        stats.bytesOut = Files.size(out);
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // Records resolved against the system's vehicles and customers; unknown ones are dropped
+    public static List<RentalRecord> read(RentalSystem rentalSystem, Path file) throws IOException {
+        List<RentalRecord> records = new ArrayList<>();
+        scan(file, null, null, null, (plateKey, customerId, day, rent, amount, due) -> {
+            Vehicle vehicle = rentalSystem.findVehicleByPlate(PlateCodec.decode(plateKey));
+            Customer customer = rentalSystem.findCustomerById(customerId);
+            if (vehicle != null && customer != null) {
+                records.add(new RentalRecord(vehicle, customer, LocalDate.ofEpochDay(day), rent ? "RENT" : "RETURN", amount,
+                    due == NO_DUE_DATE ? null : LocalDate.ofEpochDay(due)));
+            }
+        });
+        return records;
+    }
+
+    // Visits records with from <= date <= to and the given customer (null = any), in file
+    // order. Segments whose footer rules them out are not read.
+    public static Stats scan(Path file, LocalDate from, LocalDate to, Integer customerId, Visitor visitor) throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            int segments = trailer.getInt();
+            long indexOffset = trailer.getLong();
+            int magic = trailer.getInt();
+            if (size < 4 + TRAILER_BYTES || magic != MAGIC) throw new IOException("Not a history segment file: " + file);
+            ByteBuffer index = read(channel, indexOffset, segments * INDEX_ENTRY_BYTES);
+            stats.segments = segments;
+            for (int s = 0; s < segments; s++) {
+                long offset = index.getLong();
+                int length = index.getInt();
+                int count = index.getInt();
+                int firstDay = index.getInt();
+                int minDay = index.getInt(), maxDay = index.getInt();
+                int minCustomer = index.getInt(), maxCustomer = index.getInt();
+                if (maxDay < fromDay || minDay > toDay
+                    || (customerId != null && (customerId < minCustomer || customerId > maxCustomer))) {
+                    stats.segmentsSkipped++;
+                    continue;
+                }
+                ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                stats.bytesIn += length;
+                stats.records += decode(segment, count, firstDay, fromDay, toDay, customerId, visitor);
+            }
+        }
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static long decode(ByteBuffer in, int count, int firstDay, int fromDay, int toDay, Integer customerId, Visitor visitor) {
+        long[] plates = new long[(int) readVarint(in)];
+        for (int i = 0; i < plates.length; i++) plates[i] = readVarint(in);
+        int day = firstDay;
+        long visited = 0;
+        for (int i = 0; i < count; i++) {
+            long head = readVarint(in);
+            day += (int) unzigzag(readVarint(in));
+            int customer = (int) readVarint(in);
+            long amount = unzigzag(readVarint(in));
+            long due = readVarint(in);
+            if (day < fromDay || day > toDay || (customerId != null && customer != customerId)) continue;
+            visitor.record(plates[(int) (head >>> 1)], customer, day, (head & 1) == 0, amount,
+                due == 0 ? NO_DUE_DATE : day + (int) unzigzag(due - 1));
+            visited++;
+        }
+        return visited;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        if (position < 0) throw new IOException("Truncated history segment file");
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Truncated history segment file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Buffers one segment at a time; the file is only valid once closed
+    private static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final Stats stats;
+        private final Bytes records = new Bytes(SEGMENT_RECORDS * 8);
+        private final Bytes header = new Bytes(1 << 12);
+        private final Bytes index = new Bytes(1 << 12);
+        private final Map<Long, Integer> plateCodes = new HashMap<>();
+        private final List<Long> plates = new ArrayList<>();
+        private int count, firstDay, lastDay, minDay, maxDay, minCustomer, maxCustomer;
+
+        Writer(Path out, Stats stats) throws IOException {
+            this.channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.stats = stats;
+            header.putInt(MAGIC);
+            header.writeTo(channel);
+        }
+
+        void add(long plateKey, int customerId, int epochDay, boolean rent, long amountCents, int dueDay) throws IOException {
+            if (count == 0) {
+                firstDay = lastDay = minDay = maxDay = epochDay;
+                minCustomer = maxCustomer = customerId;
+            }
+            Integer code = plateCodes.get(plateKey);
+            if (code == null) {
+                code = plates.size();
+                plateCodes.put(plateKey, code);
+                plates.add(plateKey);
+            }
+            records.putVarint(((long) code << 1) | (rent ? 0 : 1));
+            records.putVarint(zigzag(epochDay - lastDay));
+            records.putVarint(customerId & 0xFFFFFFFFL);
+            records.putVarint(zigzag(amountCents));
+            records.putVarint(dueDay == NO_DUE_DATE ? 0 : zigzag((long) dueDay - epochDay) + 1);
+            lastDay = epochDay;
+            minDay = Math.min(minDay, epochDay);
+            maxDay = Math.max(maxDay, epochDay);
+            minCustomer = Math.min(minCustomer, customerId);
+            maxCustomer = Math.max(maxCustomer, customerId);
+            stats.records++;
+            if (++count == SEGMENT_RECORDS) flush();
+        }
+
+        private void flush() throws IOException {
+            if (count == 0) return;
+            header.putVarint(plates.size());
+            for (long key : plates) header.putVarint(key);
+            long offset = channel.position();
+            int length = header.size() + records.size();
+            header.writeTo(channel);
+            records.writeTo(channel);
+            index.putLong(offset);
+            index.putInt(length);
+            index.putInt(count);
+            index.putInt(firstDay);
+            index.putInt(minDay);
+            index.putInt(maxDay);
+            index.putInt(minCustomer);
+            index.putInt(maxCustomer);
+            stats.segments++;
+            plateCodes.clear();
+            plates.clear();
+            count = 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                long indexOffset = channel.position();
+                index.putInt(stats.segments);
+                index.putLong(indexOffset);
+                index.putInt(MAGIC);
+                index.writeTo(channel);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Growable little-endian byte buffer
+    private static final class Bytes {
+        private byte[] bytes;
+        private int size;
+
+        Bytes(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        void putVarint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            for (int i = 0; i < 4; i++) bytes[size++] = (byte) (v >>> (8 * i));
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (int i = 0; i < 8; i++) bytes[size++] = (byte) (v >>> (8 * i));
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+            while (buffer.hasRemaining()) channel.write(buffer);
+            size = 0;
+        }
+    }
+}
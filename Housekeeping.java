@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Background upkeep for a running RentalSystem, shared by the console app, the GUI and
+// the HTTP server: the nightly MaintenanceScheduler run, and UtilizationRollups kept
+// current from record events and saved every ROLLUP_SAVE_MINUTES and at shutdown.
+//
+// Attaching waits for the history, so it happens on its own thread; with a lazily loaded
+// history the first screen still shows at once.
+public class Housekeeping {
+    public static final long ROLLUP_SAVE_MINUTES = 5;
+
+    // guarded by this
+    private MaintenanceScheduler maintenance;
+    private UtilizationRollups rollups;
+    private boolean stopped;
+
+    private Housekeeping() {
+    }
+
+    public static Housekeeping start(RentalSystem rentalSystem) {
+        Housekeeping housekeeping = new Housekeeping();
+        Thread.ofPlatform().daemon().name("housekeeping-start").start(() -> housekeeping.attach(rentalSystem));
+        Runtime.getRuntime().addShutdownHook(new Thread(housekeeping::stop, "housekeeping-stop"));
+        return housekeeping;
+    }
+
+    private synchronized void attach(RentalSystem rentalSystem) {
+        if (stopped) return;
+        try {
+            rollups = UtilizationRollups.attach(rentalSystem);
+            rollups.start(ROLLUP_SAVE_MINUTES, TimeUnit.MINUTES);
+            maintenance = new MaintenanceScheduler(rentalSystem);
+            maintenance.start();
+        } catch (RuntimeException e) {
+            System.out.println("Error starting housekeeping: " + e.getMessage());
+        }
+    }
+
+    public synchronized UtilizationRollups getRollups() {
+        return rollups;
+    }
+
+    // Stops both jobs and saves the rollups one last time; safe to call more than once
+    public synchronized void stop() {
+        if (stopped) return;
+        stopped = true;
+        if (maintenance != null) maintenance.stop();
+        if (rollups != null) {
+            rollups.stop();
+            try {
+                rollups.save();
+            } catch (IOException e) {
+                System.out.println("Error saving utilization rollups: " + e.getMessage());
+            }
+        }
+    }
+}
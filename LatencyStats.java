@@ -0,0 +1,30 @@
+import java.util.Arrays;
+
+// Thread-safe latency recorder: samples go into a growable long array and are
+// sorted once when percentiles are requested.
+public class LatencyStats {
+    private long[] samples = new long[1024];
+    private int count;
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    // p in [0, 100], result in nanoseconds
+    public synchronized long percentile(double p) {
+        if (count == 0) return 0;
+        Arrays.sort(samples, 0, count);
+        int index = (int) Math.ceil(p / 100.0 * count) - 1;
+        return samples[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    public String summary() {
+        return String.format("p50 %.3f ms | p99 %.3f ms | p999 %.3f ms",
+            percentile(50) / 1e6, percentile(99) / 1e6, percentile(99.9) / 1e6);
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Rewrites the append-only data files into their minimal form:
+//  - vehicles.txt: one line per plate with the vehicle's current in-memory status
+//  - customers.txt: one line per customer id
+//  - rental_records.txt: only the open RENT of each plate; closed RENT/RETURN pairs
+//    are appended to rental_records_archive.txt (RentalSystem loads the archive first)
+// The big records pass streams the file up to the length it had when compaction
+// started, without holding any lock. The final step takes RentalSystem's write lock,
+// copies whatever was appended in the meantime and renames the new files into place.
+// A crash between the archive append and the rename can leave those pairs in both files.
+public class LogCompactor {
+    private static final String TMP_SUFFIX = ".compact";
+
+    private final RentalSystem rentalSystem;
+    private ScheduledExecutorService scheduler;
+
+    public LogCompactor(RentalSystem rentalSystem) {
+        this.rentalSystem = rentalSystem;
+    }
+
+    public static class Stats {
+        public long recordBytesScanned;
+        public long recordsKept;
+        public long recordsArchived;
+        public long tailBytesCopied;
+        public long nanos;
+
+        @Override
+        public String toString() {
+            return String.format("scanned %,d bytes, kept %,d records, archived %,d, tail %,d bytes, %.1f ms (%.1f MB/s)",
+                recordBytesScanned, recordsKept, recordsArchived, tailBytesCopied, nanos / 1e6,
+                recordBytesScanned / 1e6 / Math.max(nanos / 1e9, 1e-9));
+        }
+    }
+
+    // Runs compactNow() every period on a daemon thread
+    public synchronized void start(long period, TimeUnit unit) {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                compactNow();
+            } catch (IOException e) {
+                System.out.println("Error compacting data files: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    public synchronized Stats compactNow() throws IOException {
+        long start = System.nanoTime();
+        Stats stats = new Stats();
+        Path records = rentalSystem.dataFile(RentalSystem.RECORDS_FILE);
+        Path recordsTmp = rentalSystem.dataFile(RentalSystem.RECORDS_FILE + TMP_SUFFIX);
+        Path archive = rentalSystem.dataFile(RentalSystem.RECORDS_ARCHIVE_FILE);
+
+        rentalSystem.awaitHistory(); // a lazy load may still be reading the files
+
+        // Writes happen under the write lock, so the length seen here ends on a whole line
+        long snapshotLength;
+        rentalSystem.getLock().readLock().lock();
+        try {
+            snapshotLength = Files.exists(records) ? Files.size(records) : 0;
+        } finally {
+            rentalSystem.getLock().readLock().unlock();
+        }
+
+        if (snapshotLength > 0) {
+            // Pass 1: line number of each plate's last RENT that no RETURN closed
+            Map<String, Long> openRent = new HashMap<>();
+            long[] lineNo = {0};
+            forEachLine(records, snapshotLength, line -> {
+                long n = lineNo[0]++;
+                String plate = plateOf(line);
+                if (plate == null) return;
+                String type = typeOf(line);
+                if ("RENT".equals(type)) openRent.put(plate, n);
+                else if ("RETURN".equals(type)) openRent.remove(plate);
+            });
+
+            // Pass 2: open rentals (and anything unparseable) stay live, closed pairs are archived
+            lineNo[0] = 0;
+            try (Writer live = newWriter(recordsTmp, false); Writer archived = newWriter(archive, true)) {
+                forEachLine(records, snapshotLength, line -> {
+                    long n = lineNo[0]++;
+                    String plate = plateOf(line);
+                    Long open = plate == null ? null : openRent.get(plate);
+                    try {
+                        if (plate == null || (open != null && open == n)) {
+                            live.write(line);
+                            live.write('\n');
+                            stats.recordsKept++;
+                        } else {
+                            archived.write(line);
+                            archived.write('\n');
+                            stats.recordsArchived++;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            stats.recordBytesScanned = snapshotLength;
+        }
+
+        rentalSystem.getLock().writeLock().lock();
+        try {
+            if (snapshotLength > 0) {
+                // Records appended while we were scanning go to the end of the new file as-is
+                stats.tailBytesCopied = copyTail(records, recordsTmp, snapshotLength);
+                Files.move(recordsTmp, records, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            rewrite(rentalSystem.dataFile(RentalSystem.VEHICLES_FILE), out -> {
+                Map<String, Vehicle> byPlate = new LinkedHashMap<>();
+                for (Vehicle v : rentalSystem.getVehicles()) byPlate.putIfAbsent(v.getLicensePlate(), v);
+                for (Vehicle v : byPlate.values()) out.write(RentalSystem.vehicleLine(v));
+            });
+            rewrite(rentalSystem.dataFile(RentalSystem.CUSTOMERS_FILE), out -> {
+                Map<Integer, Customer> byId = new LinkedHashMap<>();
+                for (Customer c : rentalSystem.getCustomers()) byId.putIfAbsent(c.getCustomerId(), c);
+                for (Customer c : byId.values()) out.write(RentalSystem.customerLine(c));
+            });
+        } finally {
+            rentalSystem.getLock().writeLock().unlock();
+        }
+
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // Appends bytes [position, end) of `from` to `to`
+    private static long copyTail(Path from, Path to, long position) throws IOException {
+        try (FileChannel source = FileChannel.open(from, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            long copied = 0;
+            long size = source.size();
+            while (position + copied < size) {
+                copied += source.transferTo(position + copied, size - position - copied, target);
+            }
+            target.force(true);
+            return copied;
+        }
+    }
+
+    private interface LineWriter {
+        void writeAll(Writer out) throws IOException;
+    }
+
+    private static void rewrite(Path file, LineWriter content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + TMP_SUFFIX);
+        try (Writer out = newWriter(tmp, false, StandardCharsets.UTF_8)) { // same charset as RentalSystem's FileWriter
+            content.writeAll(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Writer newWriter(Path file, boolean append) throws IOException {
+        return newWriter(file, append, StandardCharsets.ISO_8859_1);
+    }
+
+    private static Writer newWriter(Path file, boolean append, Charset charset) throws IOException {
+        OutputStream os = append
+            ? Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+            : Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new BufferedWriter(new OutputStreamWriter(os, charset), 1 << 16);
+    }
+
+    private static String plateOf(String line) {
+        int comma = line.indexOf(',');
+        return comma <= 0 ? null : line.substring(0, comma);
+    }
+
+    // Fifth field of a records line; RENT lines may be followed by a due date
+    private static String typeOf(String line) {
+        String[] parts = line.split(",");
+        return parts.length < 5 ? null : parts[4];
+    }
+
+    // Streams the first `limit` bytes of a file as '\n'-terminated lines. ISO-8859-1 keeps
+    // chars and bytes one-to-one so the limit is exact and bytes are written back unchanged.
+    static void forEachLine(Path file, long limit, Consumer<String> action) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(file), StandardCharsets.ISO_8859_1)) {
+            char[] buf = new char[1 << 16];
+            StringBuilder line = new StringBuilder();
+            long remaining = limit;
+            int n;
+            while (remaining > 0 && (n = in.read(buf, 0, (int) Math.min(buf.length, remaining))) > 0) {
+                remaining -= n;
+                int lineStart = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] == '\n') {
+                        line.append(buf, lineStart, i - lineStart);
+                        int len = line.length();
+                        if (len > 0 && line.charAt(len - 1) == '\r') line.setLength(len - 1);
+                        if (line.length() > 0) action.accept(line.toString());
+                        line.setLength(0);
+                        lineStart = i + 1;
+                    }
+                }
+                line.append(buf, lineStart, n - lineStart);
+            }
+            if (line.length() > 0) action.accept(line.toString());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+public class LogCompactorTest {
+    private Path dataDir;
+    private RentalSystem rentalSystem;
+    private Car returned;
+    private Car rented;
+    private Customer customer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("compactor-test");
+        rentalSystem = RentalSystem.open(dataDir);
+        returned = new Car("Toyota", "Camry", 2022, 5);
+        returned.setLicensePlate("ABC123");
+        rented = new Car("Honda", "Civic", 2021, 5);
+        rented.setLicensePlate("XYZ789");
+        rentalSystem.addVehicle(returned);
+        rentalSystem.addVehicle(rented);
+        customer = new Customer(1, "Ann");
+        rentalSystem.addCustomer(customer);
+    }
+
+    private List<String> lines(String file) throws IOException {
+        return Files.readAllLines(dataDir.resolve(file));
+    }
+
+    @Test
+    public void testClosedPairsAreArchivedAndOpenRentalsKept() throws IOException {
+        LocalDate day = LocalDate.of(2024, 5, 1);
+        rentalSystem.rentVehicle(returned, customer, day, 50.0);
+        rentalSystem.rentVehicle(rented, customer, day, 60.0);
+        rentalSystem.returnVehicle(rented, customer, day.plusDays(1), 0.0);
+        rentalSystem.returnVehicle(returned, customer, day.plusDays(1), 5.0);
+        rentalSystem.rentVehicle(rented, customer, day.plusDays(2), 60.0); // pass 1 must pick this RENT, not the first
+        Files.writeString(dataDir.resolve(RentalSystem.RECORDS_FILE), "not a record\n", StandardOpenOption.APPEND);
+
+        LogCompactor.Stats stats = new LogCompactor(rentalSystem).compactNow();
+
+        assertEquals(2, stats.recordsKept);
+        assertEquals(4, stats.recordsArchived);
+        assertEquals(List.of("XYZ789,1,2024-05-03,60.00,RENT", "not a record"), lines(RentalSystem.RECORDS_FILE));
+        assertEquals(List.of(
+            "ABC123,1,2024-05-01,50.00,RENT",
+            "XYZ789,1,2024-05-01,60.00,RENT",
+            "XYZ789,1,2024-05-02,0.00,RETURN",
+            "ABC123,1,2024-05-02,5.00,RETURN"), lines(RentalSystem.RECORDS_ARCHIVE_FILE));
+
+        // The compacted files load back to the same history, archive first
+        RentalSystem reopened = RentalSystem.open(dataDir);
+        assertEquals(5, reopened.getRentalHistoryCount());
+        assertEquals(Vehicle.VehicleStatus.Rented, reopened.findVehicleByPlate("XYZ789").getStatus());
+        assertEquals(Vehicle.VehicleStatus.Available, reopened.findVehicleByPlate("ABC123").getStatus());
+    }
+
+    @Test
+    public void testCompactingAgainKeepsTheArchive() throws IOException {
+        LocalDate day = LocalDate.of(2024, 5, 1);
+        rentalSystem.rentVehicle(returned, customer, day, 50.0);
+        rentalSystem.returnVehicle(returned, customer, day.plusDays(1), 0.0);
+        LogCompactor compactor = new LogCompactor(rentalSystem);
+        compactor.compactNow();
+        assertTrue(lines(RentalSystem.RECORDS_FILE).isEmpty());
+
+        rentalSystem.rentVehicle(rented, customer, day.plusDays(2), 60.0);
+        LogCompactor.Stats stats = compactor.compactNow();
+        assertEquals(1, stats.recordsKept);
+        assertEquals(0, stats.recordsArchived);
+        assertEquals(2, lines(RentalSystem.RECORDS_ARCHIVE_FILE).size());
+        assertEquals(List.of("XYZ789,1,2024-05-03,60.00,RENT"), lines(RentalSystem.RECORDS_FILE));
+    }
+}
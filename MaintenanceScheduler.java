@@ -0,0 +1,288 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Plans and applies fleet maintenance. A vehicle is due for service every
+// serviceEveryRentals rentals or serviceEveryDays days since its last service, whichever
+// comes first. A service takes serviceDays days. Vehicles older than retireAfterYears are
+// taken OutOfService instead.
+//
+// plan() puts one task per vehicle into a priority queue ordered by due date. runDue()
+// pops everything due and applies it in bulk through RentalSystem.changeStatuses, which
+// checks every move against the VehicleStatus state machine. A vehicle that is out on
+// rent when its task falls due is retried the next day. Service dates are kept in
+// maintenance.txt in the data directory.
+public class MaintenanceScheduler {
+    public static final String STATE_FILE = "maintenance.txt";
+
+    public static class Policy {
+        public int serviceEveryRentals = 20;
+        public int serviceEveryDays = 90;
+        public int serviceDays = 2;
+        public int retireAfterYears = 15;
+    }
+
+    public static class Stats {
+        public int vehiclesPlanned;
+        public int serviceStarted;
+        public int serviceFinished;
+        public int retired;
+        public int deferred; // due but out on rent
+        public long planNanos;
+        public long applyNanos;
+
+        @Override
+        public String toString() {
+            return String.format("planned %,d vehicles in %.1f ms; started %,d services, finished %,d, retired %,d, deferred %,d in %.1f ms",
+                vehiclesPlanned, planNanos / 1e6, serviceStarted, serviceFinished, retired, deferred, applyNanos / 1e6);
+        }
+    }
+
+    private enum Action { FINISH_SERVICE, RETIRE, START_SERVICE } // same-day order: free vehicles first
+
+    private static final class Task implements Comparable<Task> {
+        final LocalDate due;
+        final Action action;
+        final Vehicle vehicle;
+        final boolean deferred; // requeued because the vehicle was out on rent
+
+        Task(LocalDate due, Action action, Vehicle vehicle) {
+            this(due, action, vehicle, false);
+        }
+
+        Task(LocalDate due, Action action, Vehicle vehicle, boolean deferred) {
+            this.due = due;
+            this.action = action;
+            this.vehicle = vehicle;
+            this.deferred = deferred;
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            int byDate = due.compareTo(other.due);
+            return byDate != 0 ? byDate : action.compareTo(other.action);
+        }
+    }
+
+    private static final class ServiceState {
+        LocalDate lastService;  // or when the scheduler first saw the vehicle
+        LocalDate serviceEnds;  // set while UnderMaintenance
+    }
+
+    private final RentalSystem rentalSystem;
+    private final Policy policy;
+    private final Map<Long, ServiceState> states = new HashMap<>(); // by plate key, guarded by this
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    public MaintenanceScheduler(RentalSystem rentalSystem) {
+        this(rentalSystem, new Policy());
+    }
+
+    public MaintenanceScheduler(RentalSystem rentalSystem, Policy policy) {
+        this.rentalSystem = rentalSystem;
+        this.policy = policy;
+        loadState();
+    }
+
+    // Replans and applies today's tasks once a day on a daemon thread
+    public synchronized void start() {
+        if (scheduler != null) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "maintenance-scheduler");
+            t.setDaemon(true);
+            return t;
+        });
+        // an exception escaping the task would cancel every later run
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                System.out.println("Maintenance: " + runNightly(LocalDate.now()));
+            } catch (RuntimeException e) {
+                System.out.println("Error running maintenance: " + e.getMessage());
+            }
+        }, 0, 1, TimeUnit.DAYS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    public synchronized Stats runNightly(LocalDate today) {
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        stats.vehiclesPlanned = plan(today);
+        stats.planNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        runDue(today, stats);
+        stats.applyNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    public synchronized int getQueuedTasks() {
+        return queue.size();
+    }
+
+    // Earliest planned service start for the vehicle, or null if none is queued
+    public synchronized LocalDate nextServiceDue(Vehicle vehicle) {
+        LocalDate next = null;
+        for (Task task : queue) {
+            if (task.vehicle == vehicle && task.action == Action.START_SERVICE && (next == null || task.due.isBefore(next))) {
+                next = task.due;
+            }
+        }
+        return next;
+    }
+
+    // Rebuilds the queue from a snapshot of the fleet: one pass over the history counts
+    // rentals since each vehicle's last service, then one task per vehicle is queued.
+    // Deferred tasks whose vehicle is still out on rent are carried over as they are.
+    public synchronized int plan(LocalDate today) {
+        RentalSnapshot snapshot = rentalSystem.snapshot();
+        List<Vehicle> fleet = snapshot.getVehicles();
+        for (Vehicle v : fleet) {
+            states.computeIfAbsent(v.getPlateKey(), k -> {
+                ServiceState state = new ServiceState();
+                state.lastService = today;
+                return state;
+            });
+        }
+        Map<Long, int[]> rentalsSinceService = new HashMap<>();
+        for (RentalRecord record : snapshot.getRentalHistory()) {
+            if (!"RENT".equals(record.getRecordType())) continue;
+            long key = record.getVehicle().getPlateKey();
+            ServiceState state = states.get(key);
+            if (state != null && record.getRecordDate().isAfter(state.lastService)) {
+                rentalsSinceService.computeIfAbsent(key, k -> new int[1])[0]++;
+            }
+        }
+
+        Set<Vehicle> carried = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Task> deferred = new ArrayList<>();
+        for (Task task : queue) {
+            if (task.deferred && task.vehicle.getStatus() == Vehicle.VehicleStatus.Rented) {
+                deferred.add(task);
+                carried.add(task.vehicle);
+            }
+        }
+        queue.clear();
+        queue.addAll(deferred);
+        for (Vehicle v : fleet) {
+            if (carried.contains(v)) continue;
+            ServiceState state = states.get(v.getPlateKey());
+            Vehicle.VehicleStatus status = v.getStatus();
+            if (status == Vehicle.VehicleStatus.OutOfService) continue;
+            if (v.getYear() + policy.retireAfterYears <= today.getYear()) {
+                queue.add(new Task(today, Action.RETIRE, v));
+            } else if (status == Vehicle.VehicleStatus.UnderMaintenance) {
+                queue.add(new Task(state.serviceEnds != null ? state.serviceEnds : today, Action.FINISH_SERVICE, v));
+            } else {
+                int[] rentals = rentalsSinceService.get(v.getPlateKey());
+                LocalDate due = rentals != null && rentals[0] >= policy.serviceEveryRentals
+                    ? today : state.lastService.plusDays(policy.serviceEveryDays);
+                queue.add(new Task(due, Action.START_SERVICE, v));
+            }
+        }
+        return fleet.size();
+    }
+
+    private void runDue(LocalDate today, Stats stats) {
+        Map<Action, List<Vehicle>> due = new EnumMap<>(Action.class);
+        for (Action action : Action.values()) due.put(action, new ArrayList<>());
+        while (!queue.isEmpty() && !queue.peek().due.isAfter(today)) {
+            Task task = queue.poll();
+            due.get(task.action).add(task.vehicle);
+        }
+
+        for (Vehicle v : rentalSystem.changeStatuses(due.get(Action.FINISH_SERVICE), Vehicle.VehicleStatus.Available)) {
+            ServiceState state = states.get(v.getPlateKey());
+            state.lastService = today;
+            state.serviceEnds = null;
+            queue.add(new Task(today.plusDays(policy.serviceEveryDays), Action.START_SERVICE, v));
+            stats.serviceFinished++;
+        }
+        List<Vehicle> retired = rentalSystem.changeStatuses(due.get(Action.RETIRE), Vehicle.VehicleStatus.OutOfService);
+        stats.retired = retired.size();
+        stats.deferred += requeueUnchanged(due.get(Action.RETIRE), retired, Action.RETIRE, today);
+
+        List<Vehicle> started = rentalSystem.changeStatuses(due.get(Action.START_SERVICE), Vehicle.VehicleStatus.UnderMaintenance);
+        for (Vehicle v : started) {
+            LocalDate ends = today.plusDays(policy.serviceDays);
+            states.get(v.getPlateKey()).serviceEnds = ends;
+            queue.add(new Task(ends, Action.FINISH_SERVICE, v));
+        }
+        stats.serviceStarted = started.size();
+        stats.deferred += requeueUnchanged(due.get(Action.START_SERVICE), started, Action.START_SERVICE, today);
+        saveState();
+    }
+
+    // Vehicles the state machine refused (out on rent) are tried again tomorrow
+    private int requeueUnchanged(List<Vehicle> wanted, List<Vehicle> changed, Action action, LocalDate today) {
+        Set<Vehicle> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        done.addAll(changed);
+        int deferred = 0;
+        for (Vehicle v : wanted) {
+            if (!done.contains(v) && v.getStatus() != Vehicle.VehicleStatus.OutOfService) {
+                queue.add(new Task(today.plusDays(1), action, v, true));
+                deferred++;
+            }
+        }
+        return deferred;
+    }
+
+    // plate,lastService,serviceEnds(or -),status
+    private void loadState() {
+        Path file = rentalSystem.dataFile(STATE_FILE);
+        if (!Files.exists(file)) return;
+        List<Vehicle> inService = new ArrayList<>();
+        List<Vehicle> outOfService = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file)) {
+                String[] parts = line.split(",");
+                if (parts.length < 4) continue;
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(parts[0]);
+                if (vehicle == null) continue;
+                ServiceState state = new ServiceState();
+                state.lastService = LocalDate.parse(parts[1]);
+                state.serviceEnds = parts[2].equals("-") ? null : LocalDate.parse(parts[2]);
+                states.put(vehicle.getPlateKey(), state);
+                Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(parts[3]);
+                if (status == Vehicle.VehicleStatus.UnderMaintenance) inService.add(vehicle);
+                else if (status == Vehicle.VehicleStatus.OutOfService) outOfService.add(vehicle);
+            }
+        } catch (IOException e) {
+            System.out.println("Error loading maintenance state: " + e.getMessage());
+        }
+        // RentalSystem now keeps these moves in vehicles.txt; this only catches up files
+        // written before it did, and is a no-op otherwise
+        rentalSystem.changeStatuses(inService, Vehicle.VehicleStatus.UnderMaintenance);
+        rentalSystem.changeStatuses(outOfService, Vehicle.VehicleStatus.OutOfService);
+    }
+
+    private void saveState() {
+        Path file = rentalSystem.dataFile(STATE_FILE);
+        Path tmp = rentalSystem.dataFile(STATE_FILE + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tmp)) {
+            for (Vehicle v : rentalSystem.snapshot().getVehicles()) {
+                ServiceState state = states.get(v.getPlateKey());
+                if (state == null) continue;
+                out.write(v.getLicensePlate() + "," + state.lastService + ","
+                    + (state.serviceEnds == null ? "-" : state.serviceEnds.toString()) + "," + v.getStatus() + "\n");
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving maintenance state: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error saving maintenance state: " + e.getMessage());
+        }
+    }
+}
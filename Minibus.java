@@ -6,6 +6,10 @@ public class Minibus extends Vehicle implements Rentable {
         this.isAccessible = isAccessible;
     }
 
+    public boolean isAccessible() {
+        return isAccessible;
+    }
+
     @Override
     public String getInfo() {
         return super.getInfo() + " | Accessible: " + (isAccessible ? "Yes" : "No");
@@ -13,12 +17,20 @@ public class Minibus extends Vehicle implements Rentable {
 
     @Override
     public void rentVehicle() {
+        if (!getStatus().canBecome(VehicleStatus.Rented)) {
+            System.out.println("Minibus " + getLicensePlate() + " cannot be rented while " + getStatus() + ".");
+            return;
+        }
         setStatus(VehicleStatus.Rented);
         System.out.println("Minibus " + getLicensePlate() + " has been rented.");
     }
 
     @Override
     public void returnVehicle() {
+        if (getStatus() != VehicleStatus.Rented) {
+            System.out.println("Minibus " + getLicensePlate() + " is not rented.");
+            return;
+        }
         setStatus(VehicleStatus.Available);
         System.out.println("Minibus " + getLicensePlate() + " has been returned.");
     }
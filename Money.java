@@ -0,0 +1,79 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Amounts as a long number of cents. Sums are exact (no double drift) and the
+// two-decimal text form used in the data files is parsed and printed with plain
+// integer arithmetic.
+public final class Money {
+    private Money() {}
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    // Parses "12", "12.5", "-3.07" without going through double. Anything else that
+    // Double.toString can produce (e.g. "1.0E7" in older files) takes a BigDecimal path;
+    // digits past the cents are rounded half-up. Throws NumberFormatException like parseDouble.
+    public static long parse(CharSequence text) {
+        int len = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (len > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long units = 0;
+        int digits = 0;
+        for (; i < len; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') break;
+            if (++digits > 16) return parseSlow(text); // would overflow cents
+            units = units * 10 + (c - '0');
+        }
+        long cents = 0;
+        if (i < len && text.charAt(i) == '.') {
+            i++;
+            int scale = 10;
+            for (int n = 0; i < len; i++, n++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') break;
+                if (n < 2) {
+                    cents += (c - '0') * scale;
+                    scale /= 10;
+                } else if (n == 2 && c >= '5') {
+                    cents++; // round half-up on the first dropped digit
+                }
+                digits++;
+            }
+        }
+        if (i != len) return parseSlow(text);
+        if (digits == 0) throw new NumberFormatException("Not an amount: \"" + text + "\"");
+        long total = units * 100 + cents;
+        return negative ? -total : total;
+    }
+
+    private static long parseSlow(CharSequence text) {
+        return new BigDecimal(text.toString().trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static String format(long cents) {
+        return format(cents, new StringBuilder(16)).toString();
+    }
+
+    // Appends e.g. "1234.50" / "-0.07"
+    public static StringBuilder format(long cents, StringBuilder out) {
+        if (cents < 0) {
+            out.append('-');
+            if (cents == Long.MIN_VALUE) return out.append("92233720368547758.08");
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append(cents / 100).append('.');
+        if (fraction < 10) out.append('0');
+        return out.append(fraction);
+    }
+}
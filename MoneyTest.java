@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    public void testParsePlainAmounts() {
+        assertEquals(1200, Money.parse("12"));
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(1234, Money.parse("12.34"));
+        assertEquals(-307, Money.parse("-3.07"));
+        assertEquals(-7, Money.parse("-0.07"));
+        assertEquals(150, Money.parse("+1.5"));
+        assertEquals(0, Money.parse("0"));
+        assertEquals(0, Money.parse("-0.00"));
+
+        // A missing side of the point is zero
+        assertEquals(50, Money.parse(".5"));
+        assertEquals(500, Money.parse("5."));
+    }
+
+    @Test
+    public void testParseRoundsHalfUp() {
+        // Digits past the cents round on the first dropped digit, away from zero
+        assertEquals(100, Money.parse("1.004"));
+        assertEquals(101, Money.parse("1.005"));
+        assertEquals(200, Money.parse("1.999"));
+        assertEquals(-101, Money.parse("-1.005"));
+        assertEquals(10, Money.parse("0.0999"));
+    }
+
+    @Test
+    public void testParseOlderDoubleText() {
+        // Double.toString output from files written before amounts were cents
+        assertEquals(1_000_000_000, Money.parse("1.0E7"));
+        assertEquals(5, Money.parse("5.0E-2"));
+        assertEquals(Money.toCents(0.1 + 0.2), Money.parse(Double.toString(0.1 + 0.2)));
+
+        // Too many digits for the fast path still parse exactly
+        assertEquals(1_234_567_890_123_456_700L, Money.parse("12345678901234567"));
+    }
+
+    @Test
+    public void testParseRejectsNonAmounts() {
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("."));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("12,50"));
+        assertThrows(ArithmeticException.class, () -> Money.parse("1E400")); // past a long of cents
+    }
+
+    @Test
+    public void testFormatAndRoundTrip() {
+        assertEquals("0.00", Money.format(0));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.07", Money.format(-7));
+        assertEquals("1234.50", Money.format(123450));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+
+        long[] samples = {0, 1, 9, 10, 99, 100, 101, -1, -100, 4500, 123_456_789, Long.MAX_VALUE, Long.MIN_VALUE + 1};
+        for (long cents : samples) {
+            assertEquals(cents, Money.parse(Money.format(cents)), "round trip of " + cents);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Thread-safe dictionary that maps names such as makes and models to small int codes.
+// Names are stored once in capitalized form ("toyota", "TOYOTA" -> code of "Toyota"),
+// so vehicles share a single String per distinct name and can be compared by code.
+// Lookups of an already-seen spelling are a single hash probe and allocate nothing.
+public class NameDictionary {
+    public static final int NONE = -1; // code for null/empty names
+
+    // raw spellings seen so far; capped so odd inputs can't grow it without bound
+    private static final int MAX_SPELLINGS = 1 << 16;
+
+    private final ConcurrentHashMap<String, Integer> codeBySpelling = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> codeByName = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int size; // guarded by this
+
+    public int encode(String raw) {
+        if (raw == null || raw.isEmpty()) return NONE;
+        Integer code = codeBySpelling.get(raw);
+        if (code != null) return code;
+        return add(raw);
+    }
+
+    // Code of a name without adding it; NONE if it was never encoded
+    public int lookup(String raw) {
+        if (raw == null || raw.isEmpty()) return NONE;
+        Integer code = codeBySpelling.get(raw);
+        if (code != null) return code;
+        code = codeByName.get(capitalize(raw));
+        return code == null ? NONE : code;
+    }
+
+    public String name(int code) {
+        return code == NONE ? null : names[code];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(String raw) {
+        String name = capitalize(raw);
+        Integer code = codeByName.get(name);
+        if (code == null) {
+            if (size == names.length) names = Arrays.copyOf(names, size * 2);
+            names[size] = name;
+            code = size++;
+            codeByName.put(name, code);
+        }
+        if (codeBySpelling.size() < MAX_SPELLINGS) codeBySpelling.put(raw, code);
+        return code;
+    }
+
+    static String capitalize(String input) {
+        return input.substring(0, 1).toUpperCase() + input.substring(1).toLowerCase();
+    }
+}
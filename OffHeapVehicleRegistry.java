@@ -0,0 +1,220 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+// Vehicle registry that keeps one fixed-width row per vehicle outside the Java heap, so
+// a very large fleet costs the GC a handful of objects instead of one Vehicle (plus
+// subtype fields) per vehicle. Rows live in direct ByteBuffers of CHUNK_ROWS rows each;
+// the plate index is a pair of primitive arrays. Status is updated with an atomic
+// compare-and-set on the row, checked against the VehicleStatus state machine.
+// Vehicle objects are built only when a caller asks for one (view), and are copies:
+// changing a view's status does not change the row.
+//
+// Row layout, 32 bytes:
+//   0 plate key (long)   8 status ordinal (int)   12 make code   16 model code
+//   20 year (short)      22 type (byte)           23 flags (accessible/trailer/turbo)
+//   24 seats (int)       28 horsepower (int)
+//   24 cargo size (double), for pickup trucks, which have no seats or horsepower
+public class OffHeapVehicleRegistry {
+    public static final int ROW_BYTES = 32;
+    private static final int CHUNK_ROWS = 1 << 16; // 2 MB per chunk
+
+    private static final int PLATE = 0, STATUS = 8, MAKE = 12, MODEL = 16, YEAR = 20, TYPE = 22, FLAGS = 23, SEATS = 24, EXTRA = 28, CARGO = 24;
+    private static final byte CAR = 0, SPORT_CAR = 1, MINIBUS = 2, PICKUP_TRUCK = 3;
+    private static final int ACCESSIBLE = 1, TRAILER = 2, TURBO = 4;
+    private static final Vehicle.VehicleStatus[] STATUSES = Vehicle.VehicleStatus.values();
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final VarHandle KEY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile int size; // rows below size are fully written
+    private volatile Table table = new Table(1 << 10); // replaced wholesale on resize
+
+    // plate key -> row, open addressing; written only under the registry's lock
+    private static final class Table {
+        final long[] keys;
+        final int[] rows;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, PlateCodec.INVALID);
+            rows = new int[capacity];
+        }
+
+        void insert(long key, int row) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            while (keys[i] != PlateCodec.INVALID) i = (i + 1) & mask;
+            rows[i] = row;
+            KEY.setRelease(keys, i, key); // a reader that acquires the key sees its row
+        }
+    }
+
+    public static OffHeapVehicleRegistry of(List<Vehicle> vehicles) {
+        OffHeapVehicleRegistry registry = new OffHeapVehicleRegistry();
+        for (Vehicle v : vehicles) registry.add(v);
+        return registry;
+    }
+
+    // Copies the vehicle into a new row; false if its plate is invalid or already registered
+    public synchronized boolean add(Vehicle vehicle) {
+        long key = vehicle.getPlateKey();
+        if (key == PlateCodec.INVALID || rowOf(key) >= 0) return false;
+        int row = size;
+        if (row / CHUNK_ROWS == chunks.length) {
+            ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = ByteBuffer.allocateDirect(CHUNK_ROWS * ROW_BYTES).order(ByteOrder.nativeOrder());
+            chunks = grown;
+        }
+        ByteBuffer chunk = chunks[row / CHUNK_ROWS];
+        int at = (row % CHUNK_ROWS) * ROW_BYTES;
+        chunk.putLong(at + PLATE, key);
+        chunk.putInt(at + MAKE, vehicle.getMakeCode());
+        chunk.putInt(at + MODEL, vehicle.getModelCode());
+        chunk.putShort(at + YEAR, (short) vehicle.getYear());
+        int flags = 0;
+        if (vehicle instanceof SportCar) {
+            SportCar s = (SportCar) vehicle;
+            chunk.put(at + TYPE, SPORT_CAR);
+            chunk.putInt(at + SEATS, s.getNumSeats());
+            chunk.putInt(at + EXTRA, s.getHorsepower());
+            if (s.hasTurbo()) flags |= TURBO;
+        } else if (vehicle instanceof Car) {
+            chunk.put(at + TYPE, CAR);
+            chunk.putInt(at + SEATS, ((Car) vehicle).getNumSeats());
+        } else if (vehicle instanceof Minibus) {
+            chunk.put(at + TYPE, MINIBUS);
+            if (((Minibus) vehicle).isAccessible()) flags |= ACCESSIBLE;
+        } else if (vehicle instanceof PickupTruck) {
+            PickupTruck t = (PickupTruck) vehicle;
+            chunk.put(at + TYPE, PICKUP_TRUCK);
+            chunk.putDouble(at + CARGO, t.getCargoSize());
+            if (t.hasTrailer()) flags |= TRAILER;
+        } else {
+            throw new IllegalArgumentException("Unsupported vehicle type: " + vehicle.getClass().getSimpleName());
+        }
+        chunk.put(at + FLAGS, (byte) flags);
+        INT.setVolatile(chunk, at + STATUS, vehicle.getStatus().ordinal());
+        size = row + 1; // publishes the row before its key, so a reader that finds the key can view it
+        index(key, row);
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Row of the plate key, or -1
+    public int rowOf(long key) {
+        if (key < 0) return -1;
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = (long) KEY.getAcquire(t.keys, i);
+            if (k == key) return t.rows[i];
+            if (k == PlateCodec.INVALID) return -1;
+        }
+    }
+
+    public Vehicle.VehicleStatus getStatus(int row) {
+        return STATUSES[(int) INT.getVolatile(chunk(row), offset(row) + STATUS)];
+    }
+
+    // Atomically moves the row from `expected` to `next`; false if another thread got
+    // there first or the state machine does not allow the move
+    public boolean changeStatus(int row, Vehicle.VehicleStatus expected, Vehicle.VehicleStatus next) {
+        if (!expected.canBecome(next)) return false;
+        return INT.compareAndSet(chunk(row), offset(row) + STATUS, expected.ordinal(), next.ordinal());
+    }
+
+    public long getPlateKey(int row) {
+        return chunk(row).getLong(offset(row) + PLATE);
+    }
+
+    public int getMakeCode(int row) {
+        return chunk(row).getInt(offset(row) + MAKE);
+    }
+
+    public int getYear(int row) {
+        return chunk(row).getShort(offset(row) + YEAR);
+    }
+
+    // Counted straight from the rows; no Vehicle objects are created
+    public int countByStatus(Vehicle.VehicleStatus status) {
+        int count = 0;
+        int n = size;
+        for (int row = 0; row < n; row++) {
+            if ((int) INT.getVolatile(chunk(row), offset(row) + STATUS) == status.ordinal()) count++;
+        }
+        return count;
+    }
+
+    // A new Vehicle copied from the row
+    public Vehicle view(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("No vehicle at row " + row);
+        ByteBuffer chunk = chunk(row);
+        int at = offset(row);
+        String make = Vehicle.MAKES.name(chunk.getInt(at + MAKE));
+        String model = Vehicle.MODELS.name(chunk.getInt(at + MODEL));
+        int year = chunk.getShort(at + YEAR);
+        int flags = chunk.get(at + FLAGS);
+        Vehicle vehicle;
+        switch (chunk.get(at + TYPE)) {
+            case SPORT_CAR:
+                vehicle = new SportCar(make, model, year, chunk.getInt(at + SEATS), chunk.getInt(at + EXTRA), (flags & TURBO) != 0);
+                break;
+            case MINIBUS:
+                vehicle = new Minibus(make, model, year, (flags & ACCESSIBLE) != 0);
+                break;
+            case PICKUP_TRUCK:
+                vehicle = new PickupTruck(make, model, year, chunk.getDouble(at + CARGO), (flags & TRAILER) != 0);
+                break;
+            default:
+                vehicle = new Car(make, model, year, chunk.getInt(at + SEATS));
+        }
+        vehicle.setLicensePlate(PlateCodec.decode(chunk.getLong(at + PLATE)));
+        vehicle.setStatus(getStatus(row));
+        return vehicle;
+    }
+
+    public Vehicle find(String plate) {
+        int row = rowOf(PlateCodec.encode(plate));
+        return row < 0 ? null : view(row);
+    }
+
+    public long offHeapBytes() {
+        return (long) chunks.length * CHUNK_ROWS * ROW_BYTES;
+    }
+
+    private ByteBuffer chunk(int row) {
+        return chunks[row / CHUNK_ROWS];
+    }
+
+    private static int offset(int row) {
+        return (row % CHUNK_ROWS) * ROW_BYTES;
+    }
+
+    // Called with the lock held, after size counts the new row. A grown table is fully
+    // built before it is published; in place, the slot's release store publishes it.
+    private void index(long key, int row) {
+        Table t = table;
+        if (size * 2 >= t.keys.length) {
+            Table grown = new Table(t.keys.length * 2);
+            for (int i = 0; i < t.keys.length; i++) {
+                if (t.keys[i] != PlateCodec.INVALID) grown.insert(t.keys[i], t.rows[i]);
+            }
+            t = grown;
+        }
+        t.insert(key, row);
+        table = t;
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L; // same spread as PlateIndex
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
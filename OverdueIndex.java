@@ -0,0 +1,109 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+// Open rentals ordered by due date, kept up to date from RentalSystem's record events:
+// a RENT adds the vehicle, a RETURN removes it, each in O(log n). Overdue and due-soon
+// queries walk only the front of the set, so they cost O(log n + results) however long
+// the history is. A vehicle is due back by the end of its due date; RENT records written
+// before due dates existed count as one-day rentals.
+public class OverdueIndex implements RentalSystemListener {
+    public static final int DEFAULT_RENTAL_DAYS = 1;
+
+    public static final class OpenRental {
+        private final RentalRecord record;
+        private final LocalDate dueDate;
+        private final long plateKey; // tie-break, so two rentals due the same day both stay
+
+        OpenRental(RentalRecord record, LocalDate dueDate, long plateKey) {
+            this.record = record;
+            this.dueDate = dueDate;
+            this.plateKey = plateKey;
+        }
+
+        public Vehicle getVehicle() { return record.getVehicle(); }
+
+        public Customer getCustomer() { return record.getCustomer(); }
+
+        public LocalDate getRentedOn() { return record.getRecordDate(); }
+
+        public LocalDate getDueDate() { return dueDate; }
+
+        @Override
+        public String toString() {
+            return record.getVehicle().getLicensePlate() + " | " + record.getCustomer().getCustomerName()
+                + " | rented " + record.getRecordDate() + " | due " + dueDate;
+        }
+    }
+
+    private static final Comparator<OpenRental> BY_DUE_DATE = Comparator
+        .comparing(OpenRental::getDueDate)
+        .thenComparingLong(r -> r.plateKey);
+
+    // all guarded by this
+    private final TreeSet<OpenRental> byDueDate = new TreeSet<>(BY_DUE_DATE);
+    private final Map<Long, OpenRental> byPlate = new HashMap<>();
+
+    private OverdueIndex() {
+    }
+
+    // Replays the existing history, then follows new records
+    public static OverdueIndex attach(RentalSystem rentalSystem) {
+        OverdueIndex index = new OverdueIndex();
+        rentalSystem.addListener(index, true);
+        return index;
+    }
+
+    // Index of an in-memory history with no RentalSystem attached (benchmarks)
+    static OverdueIndex of(List<RentalRecord> history) {
+        OverdueIndex index = new OverdueIndex();
+        for (RentalRecord record : history) index.recordAdded(record);
+        return index;
+    }
+
+    @Override
+    public synchronized void recordAdded(RentalRecord record) {
+        long key = record.getVehicle().getPlateKey();
+        OpenRental previous = byPlate.remove(key);
+        if (previous != null) byDueDate.remove(previous);
+        if ("RENT".equals(record.getRecordType())) {
+            LocalDate due = record.getDueDate() != null ? record.getDueDate()
+                : record.getRecordDate().plusDays(DEFAULT_RENTAL_DAYS);
+            OpenRental rental = new OpenRental(record, due, key);
+            byPlate.put(key, rental);
+            byDueDate.add(rental);
+        }
+    }
+
+    public synchronized int size() {
+        return byPlate.size();
+    }
+
+    public synchronized OpenRental get(Vehicle vehicle) {
+        return byPlate.get(vehicle.getPlateKey());
+    }
+
+    // Rentals whose due date is before `asOf`, most overdue first
+    public synchronized List<OpenRental> overdue(LocalDate asOf) {
+        List<OpenRental> result = new ArrayList<>();
+        for (OpenRental rental : byDueDate) {
+            if (!rental.getDueDate().isBefore(asOf)) break;
+            result.add(rental);
+        }
+        return result;
+    }
+
+    // Rentals that fall due (reach the end of their due date) after `now` and within the
+    // next `hours` hours, soonest first
+    public synchronized List<OpenRental> dueWithin(LocalDateTime now, int hours) {
+        LocalDateTime until = now.plusHours(hours);
+        List<OpenRental> result = new ArrayList<>();
+        // the end of day d is after now exactly when d is not before now's date
+        OpenRental from = new OpenRental(null, now.toLocalDate(), Long.MIN_VALUE);
+        for (OpenRental rental : byDueDate.tailSet(from, true)) {
+            if (rental.getDueDate().plusDays(1).atStartOfDay().isAfter(until)) break;
+            result.add(rental);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OverdueIndexTest {
+    private final Customer customer = new Customer(1, "Test Customer");
+
+    private static Car car(String plate) {
+        Car car = new Car("Toyota", "Corolla", 2020, 5);
+        car.setLicensePlate(plate);
+        return car;
+    }
+
+    private RentalRecord rent(Vehicle vehicle, String date, String due) {
+        return new RentalRecord(vehicle, customer, LocalDate.parse(date), "RENT", 50_00, due == null ? null : LocalDate.parse(due));
+    }
+
+    private RentalRecord giveBack(Vehicle vehicle, String date) {
+        return new RentalRecord(vehicle, customer, LocalDate.parse(date), "RETURN", 0, null);
+    }
+
+    private static List<String> plates(List<OverdueIndex.OpenRental> rentals) {
+        List<String> plates = new ArrayList<>();
+        for (OverdueIndex.OpenRental r : rentals) plates.add(r.getVehicle().getLicensePlate());
+        return plates;
+    }
+
+    @Test
+    public void testOverdueStartsTheDayAfterTheDueDate() {
+        Car car = car("AAA100");
+        OverdueIndex index = OverdueIndex.of(List.of(rent(car, "2024-03-01", "2024-03-10")));
+
+        // Due back by the end of the due date
+        assertTrue(index.overdue(LocalDate.parse("2024-03-09")).isEmpty());
+        assertTrue(index.overdue(LocalDate.parse("2024-03-10")).isEmpty());
+        assertEquals(List.of("AAA100"), plates(index.overdue(LocalDate.parse("2024-03-11"))));
+    }
+
+    @Test
+    public void testRentalsWithoutDueDateAreOneDay() {
+        Car car = car("AAA100");
+        OverdueIndex index = OverdueIndex.of(List.of(rent(car, "2024-03-01", null)));
+
+        assertEquals(LocalDate.parse("2024-03-02"), index.get(car).getDueDate());
+        assertTrue(index.overdue(LocalDate.parse("2024-03-02")).isEmpty());
+        assertEquals(1, index.overdue(LocalDate.parse("2024-03-03")).size());
+    }
+
+    @Test
+    public void testReturnsCloseRentalsAndOrderIsByDueDate() {
+        Car a = car("AAA100");
+        Car b = car("BBB200");
+        Car c = car("CCC300");
+        Car d = car("DDD400");
+        OverdueIndex index = OverdueIndex.of(List.of(
+            rent(c, "2024-03-01", "2024-03-05"),
+            rent(a, "2024-03-01", "2024-03-03"),
+            rent(b, "2024-03-01", "2024-03-05"), // same day as c: both stay
+            rent(d, "2024-03-01", "2024-03-04"),
+            giveBack(d, "2024-03-02")));
+
+        assertEquals(3, index.size());
+        assertNull(index.get(d));
+        assertEquals(List.of("AAA100", "BBB200", "CCC300"), plates(index.overdue(LocalDate.parse("2024-03-10"))));
+        assertEquals(List.of("AAA100"), plates(index.overdue(LocalDate.parse("2024-03-05"))));
+
+        // A new RENT replaces the vehicle's previous entry
+        index.recordAdded(rent(a, "2024-03-04", "2024-03-20"));
+        assertEquals(3, index.size());
+        assertEquals(List.of("BBB200", "CCC300"), plates(index.overdue(LocalDate.parse("2024-03-10"))));
+    }
+
+    @Test
+    public void testDueWithinBoundaries() {
+        Car yesterday = car("AAA100");
+        Car today = car("BBB200");
+        Car tomorrow = car("CCC300");
+        OverdueIndex index = OverdueIndex.of(List.of(
+            rent(yesterday, "2024-03-01", "2024-03-09"),
+            rent(today, "2024-03-01", "2024-03-10"),
+            rent(tomorrow, "2024-03-01", "2024-03-11")));
+        LocalDateTime noon = LocalDateTime.parse("2024-03-10T12:00");
+
+        // today's rental falls due at midnight, exactly 12 hours from noon
+        assertEquals(List.of("BBB200"), plates(index.dueWithin(noon, 12)));
+        assertTrue(index.dueWithin(noon, 11).isEmpty());
+        assertEquals(List.of("BBB200", "CCC300"), plates(index.dueWithin(noon, 36)));
+        assertEquals(List.of("BBB200"), plates(index.dueWithin(noon, 35)));
+
+        // At midnight itself today's rental is already due, so it is not in the window
+        LocalDateTime midnight = LocalDateTime.parse("2024-03-11T00:00");
+        assertEquals(List.of("CCC300"), plates(index.dueWithin(midnight, 24)));
+    }
+}
@@ -24,12 +24,20 @@ public class PickupTruck extends Vehicle implements Rentable {
 
     @Override
     public void rentVehicle() {
+        if (!getStatus().canBecome(VehicleStatus.Rented)) {
+            System.out.println("Pickup Truck " + getLicensePlate() + " cannot be rented while " + getStatus() + ".");
+            return;
+        }
         setStatus(VehicleStatus.Rented);
         System.out.println("Pickup Truck " + getLicensePlate() + " has been rented.");
     }
 
     @Override
     public void returnVehicle() {
+        if (getStatus() != VehicleStatus.Rented) {
+            System.out.println("Pickup Truck " + getLicensePlate() + " is not rented.");
+            return;
+        }
         setStatus(VehicleStatus.Available);
         System.out.println("Pickup Truck " + getLicensePlate() + " has been returned.");
     }
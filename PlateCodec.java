@@ -0,0 +1,45 @@
+// License plates in the AAA999 format: three letters followed by three digits.
+// Validation is a single pass over the characters (no regex), and a valid plate packs
+// into a primitive long key (letters base 26, digits base 10) for hashing and comparison.
+public final class PlateCodec {
+    public static final long INVALID = -1;
+    public static final int LENGTH = 6;
+
+    private PlateCodec() {}
+
+    // Key of the plate, case-insensitive; INVALID if it is not in AAA999 format
+    public static long encode(CharSequence plate) {
+        if (plate == null || plate.length() != LENGTH) return INVALID;
+        long key = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = plate.charAt(i);
+            if (c >= 'a' && c <= 'z') c -= 'a' - 'A';
+            if (c < 'A' || c > 'Z') return INVALID;
+            key = key * 26 + (c - 'A');
+        }
+        for (int i = 3; i < LENGTH; i++) {
+            char c = plate.charAt(i);
+            if (c < '0' || c > '9') return INVALID;
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    public static boolean isValid(CharSequence plate) {
+        return encode(plate) != INVALID;
+    }
+
+    public static String decode(long key) {
+        if (key < 0 || key >= 26L * 26 * 26 * 1000) throw new IllegalArgumentException("Not a plate key: " + key);
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 3; i--) {
+            chars[i] = (char) ('0' + key % 10);
+            key /= 10;
+        }
+        for (int i = 2; i >= 0; i--) {
+            chars[i] = (char) ('A' + key % 26);
+            key /= 26;
+        }
+        return new String(chars);
+    }
+}
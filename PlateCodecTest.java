@@ -0,0 +1,36 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlateCodecTest {
+
+    @Test
+    public void testValidPlatesRoundTrip() {
+        // Valid plates encode to a key and decode back upper case
+        assertEquals("AAA100", PlateCodec.decode(PlateCodec.encode("AAA100")));
+        assertEquals("ZZZ999", PlateCodec.decode(PlateCodec.encode("ZZZ999")));
+        assertEquals("ABC567", PlateCodec.decode(PlateCodec.encode("abc567")));
+        assertEquals(0, PlateCodec.encode("AAA000"));
+
+        // Case does not change the key
+        assertEquals(PlateCodec.encode("ABC123"), PlateCodec.encode("aBc123"));
+    }
+
+    @Test
+    public void testInvalidPlatesRejected() {
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode(null));
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode(""));
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("AAA1000")); // too long
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("ZZZ99"));   // too short
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("123ABC"));  // wrong order
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("AB1234"));
+        assertEquals(PlateCodec.INVALID, PlateCodec.encode("AB C12"));
+    }
+
+    @Test
+    public void testKeysOrderLikePlates() {
+        // Keys compare in the same order as the plate strings
+        assertTrue(PlateCodec.encode("AAA999") < PlateCodec.encode("AAB000"));
+        assertTrue(PlateCodec.encode("ABC123") < PlateCodec.encode("ABC124"));
+        assertTrue(PlateCodec.encode("YZZ999") < PlateCodec.encode("ZAA000"));
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+// Open-addressing hash map from plate keys (PlateCodec) to vehicles. Keys are primitive
+// longs, so lookups neither box nor allocate. Not thread-safe: RentalSystem guards it.
+public class PlateIndex {
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private Vehicle[] values;
+    private int size;
+
+    public PlateIndex() {
+        keys = new long[64];
+        Arrays.fill(keys, EMPTY);
+        values = new Vehicle[64];
+    }
+
+    public Vehicle get(long key) {
+        if (key < 0) return null;
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) return values[i];
+            if (keys[i] == EMPTY) return null;
+        }
+    }
+
+    // Adds or replaces the vehicle for its plate key
+    public void put(long key, Vehicle vehicle) {
+        if (key < 0) throw new IllegalArgumentException("Invalid plate key");
+        if (size * 2 >= keys.length) resize();
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != EMPTY && keys[i] != key) i = (i + 1) & mask;
+        if (keys[i] == EMPTY) size++;
+        keys[i] = key;
+        values[i] = vehicle;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Vehicle[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = new Vehicle[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L; // spread sequential plates across the table
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
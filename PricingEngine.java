@@ -0,0 +1,215 @@
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Computes rental quotes from rate tables. The tables are compiled once into arrays:
+// seat and horsepower surcharges are indexed directly, and season multipliers become a
+// prefix sum over the days of the year so a quote of any length costs O(1).
+// Recent quotes are kept in a bounded LRU cache. All amounts are in cents (see Money).
+public class PricingEngine {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    // Editable rate tables; PricingEngine copies what it needs when constructed
+    public static class RateTable {
+        public long carDaily = 45_00;
+        public long sportCarDaily = 120_00;
+        public long minibusDaily = 80_00;
+        public long pickupTruckDaily = 65_00;
+
+        public int includedSeats = 5;          // Car seats above this are charged
+        public long perExtraSeat = 3_00;
+        public long accessibleSurcharge = 10_00;
+        public double[] cargoBands = {500, 1000};            // upper bounds of cargo bands
+        public long[] cargoSurcharge = {0, 10_00, 20_00};   // one more entry than bands
+        public long trailerSurcharge = 15_00;
+        public int includedHorsepower = 200;
+        public int horsepowerStep = 100;       // each started step above the included hp
+        public long perHorsepowerStep = 25_00;
+        public long turboSurcharge = 10_00;
+
+        public int[] monthPercent = {100, 100, 100, 100, 100, 125, 125, 125, 100, 100, 100, 110}; // Jan..Dec
+        public int[] discountFromDays = {7, 30};   // ascending
+        public int[] discountPercent = {10, 20};
+    }
+
+    public static class Quote {
+        public final long dailyRateCents;
+        public final int days;
+        public final long rentalCents;    // daily rate x seasonal multipliers for each day
+        public final long discountCents;
+        public final long extraFeesCents;
+        public final long totalCents;
+
+        Quote(long dailyRateCents, int days, long rentalCents, long discountCents, long extraFeesCents) {
+            this.dailyRateCents = dailyRateCents;
+            this.days = days;
+            this.rentalCents = rentalCents;
+            this.discountCents = discountCents;
+            this.extraFeesCents = extraFeesCents;
+            this.totalCents = rentalCents - discountCents + extraFeesCents;
+        }
+
+        @Override
+        public String toString() {
+            return days + " day(s) at $" + Money.format(dailyRateCents) + "/day: $" + Money.format(rentalCents)
+                + (discountCents > 0 ? " - $" + Money.format(discountCents) + " discount" : "")
+                + (extraFeesCents > 0 ? " + $" + Money.format(extraFeesCents) + " fees" : "")
+                + " = $" + Money.format(totalCents);
+        }
+    }
+
+    private static final int MAX_SEATS = 64;
+    private static final int MAX_HORSEPOWER = 2000;
+
+    private final RateTable rates;
+    private final long[] seatSurcharge = new long[MAX_SEATS + 1];
+    private final long[] horsepowerSurcharge = new long[MAX_HORSEPOWER + 1];
+    private final long[] seasonPrefix = new long[367];  // sum of percents for day-of-year 1..n (leap-year layout)
+    private final int[] discountByDays;                 // percent for 0..last threshold days
+
+    private final Map<QuoteKey, Quote> cache;
+    private long hits;
+    private long misses;
+
+    public PricingEngine() {
+        this(new RateTable(), DEFAULT_CACHE_SIZE);
+    }
+
+    public PricingEngine(RateTable rates, int cacheSize) {
+        this.rates = rates;
+        for (int seats = 0; seats <= MAX_SEATS; seats++) {
+            seatSurcharge[seats] = Math.max(0, seats - rates.includedSeats) * rates.perExtraSeat;
+        }
+        for (int hp = 0; hp <= MAX_HORSEPOWER; hp++) {
+            int over = Math.max(0, hp - rates.includedHorsepower);
+            horsepowerSurcharge[hp] = ((over + rates.horsepowerStep - 1) / rates.horsepowerStep) * rates.perHorsepowerStep;
+        }
+        LocalDate day = LocalDate.of(2024, 1, 1); // a leap year, so every day-of-year has a slot
+        for (int doy = 1; doy <= 366; doy++, day = day.plusDays(1)) {
+            seasonPrefix[doy] = seasonPrefix[doy - 1] + rates.monthPercent[day.getMonthValue() - 1];
+        }
+        int maxThreshold = rates.discountFromDays.length == 0 ? 0 : rates.discountFromDays[rates.discountFromDays.length - 1];
+        discountByDays = new int[maxThreshold + 1];
+        for (int days = 0; days <= maxThreshold; days++) {
+            for (int i = 0; i < rates.discountFromDays.length; i++) {
+                if (days >= rates.discountFromDays[i]) discountByDays[days] = rates.discountPercent[i];
+            }
+        }
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<QuoteKey, Quote> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public long dailyRateCents(Vehicle vehicle) {
+        if (vehicle instanceof SportCar) {
+            SportCar car = (SportCar) vehicle;
+            return rates.sportCarDaily + seatSurcharge[clamp(car.getNumSeats(), MAX_SEATS)]
+                + horsepowerSurcharge[clamp(car.getHorsepower(), MAX_HORSEPOWER)]
+                + (car.hasTurbo() ? rates.turboSurcharge : 0);
+        } else if (vehicle instanceof Car) {
+            return rates.carDaily + seatSurcharge[clamp(((Car) vehicle).getNumSeats(), MAX_SEATS)];
+        } else if (vehicle instanceof Minibus) {
+            return rates.minibusDaily + (((Minibus) vehicle).isAccessible() ? rates.accessibleSurcharge : 0);
+        } else if (vehicle instanceof PickupTruck) {
+            PickupTruck truck = (PickupTruck) vehicle;
+            int band = 0;
+            while (band < rates.cargoBands.length && truck.getCargoSize() > rates.cargoBands[band]) band++;
+            return rates.pickupTruckDaily + rates.cargoSurcharge[band] + (truck.hasTrailer() ? rates.trailerSurcharge : 0);
+        }
+        throw new IllegalArgumentException("No rates for " + vehicle.getClass().getSimpleName());
+    }
+
+    public Quote quote(Vehicle vehicle, LocalDate start, int days, long extraFeesCents) {
+        if (days <= 0) throw new IllegalArgumentException("Rental must be at least one day");
+        QuoteKey key = new QuoteKey(dailyRateCents(vehicle), start, days, extraFeesCents);
+        synchronized (cache) {
+            Quote cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        Quote quote = compute(key);
+        synchronized (cache) {
+            cache.put(key, quote);
+        }
+        return quote;
+    }
+
+    public long getCacheHits() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    public long getCacheMisses() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    private Quote compute(QuoteKey key) {
+        // percent-days over [start, start + days), walking whole years through the prefix sums
+        long percentDays = 0;
+        LocalDate day = key.start;
+        int remaining = key.days;
+        while (remaining > 0) {
+            int doy = slotOf(day);
+            int span = Math.min(remaining, day.lengthOfYear() - day.getDayOfYear() + 1);
+            int end = doy + span - 1;
+            if (!day.isLeapYear() && doy <= 59 && end >= 60) { // skip the Feb 29 slot in common years
+                percentDays += seasonPrefix[end + 1] - seasonPrefix[doy - 1] - (seasonPrefix[60] - seasonPrefix[59]);
+            } else {
+                percentDays += seasonPrefix[end] - seasonPrefix[doy - 1];
+            }
+            remaining -= span;
+            day = day.plusDays(span);
+        }
+        long rental = (key.dailyRateCents * percentDays + 50) / 100;
+        int percent = discountByDays[Math.min(key.days, discountByDays.length - 1)];
+        long discount = (rental * percent + 50) / 100;
+        return new Quote(key.dailyRateCents, key.days, rental, discount, key.extraFeesCents);
+    }
+
+    // Day-of-year in the leap-year layout of seasonPrefix
+    private static int slotOf(LocalDate day) {
+        int doy = day.getDayOfYear();
+        return !day.isLeapYear() && doy >= 60 ? doy + 1 : doy;
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    private static final class QuoteKey {
+        final long dailyRateCents;
+        final LocalDate start;
+        final int days;
+        final long extraFeesCents;
+
+        QuoteKey(long dailyRateCents, LocalDate start, int days, long extraFeesCents) {
+            this.dailyRateCents = dailyRateCents;
+            this.start = start;
+            this.days = days;
+            this.extraFeesCents = extraFeesCents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof QuoteKey)) return false;
+            QuoteKey k = (QuoteKey) o;
+            return dailyRateCents == k.dailyRateCents && days == k.days
+                && extraFeesCents == k.extraFeesCents && start.equals(k.start);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dailyRateCents, start, days, extraFeesCents);
+        }
+    }
+}
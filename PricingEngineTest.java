@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.LocalDate;
+
+public class PricingEngineTest {
+    private final PricingEngine.RateTable rates = new PricingEngine.RateTable();
+    private final PricingEngine engine = new PricingEngine(rates, 100);
+
+    private static Car car() {
+        Car car = new Car("Toyota", "Corolla", 2020, 5);
+        car.setLicensePlate("AAA100");
+        return car;
+    }
+
+    // Rental charge summed one day at a time, the way the prefix sums must add up
+    private long dayByDay(long dailyRate, LocalDate start, int days) {
+        long percentDays = 0;
+        for (LocalDate day = start; day.isBefore(start.plusDays(days)); day = day.plusDays(1)) {
+            percentDays += rates.monthPercent[day.getMonthValue() - 1];
+        }
+        return (dailyRate * percentDays + 50) / 100;
+    }
+
+    @Test
+    public void testSeasonSumsMatchDayByDay() {
+        Car car = car();
+        long rate = engine.dailyRateCents(car);
+        // starts around month ends, Feb 29 and year ends, in leap and common years
+        String[] starts = {"2023-01-01", "2023-02-27", "2023-05-31", "2023-12-30", "2024-02-28",
+            "2024-02-29", "2024-03-01", "2024-12-31", "2025-06-15", "2027-12-31"};
+        int[] lengths = {1, 2, 3, 7, 29, 30, 31, 60, 365, 366, 367, 800};
+        for (String start : starts) {
+            for (int days : lengths) {
+                LocalDate from = LocalDate.parse(start);
+                assertEquals(dayByDay(rate, from, days), engine.quote(car, from, days, 0).rentalCents,
+                    days + " days from " + start);
+            }
+        }
+    }
+
+    @Test
+    public void testSeasonalMonths() {
+        Car car = car();
+        // June to August are 125%, December 110%
+        assertEquals(45_00, engine.quote(car, LocalDate.of(2024, 5, 31), 1, 0).rentalCents);
+        assertEquals(56_25, engine.quote(car, LocalDate.of(2024, 6, 1), 1, 0).rentalCents);
+        assertEquals(49_50, engine.quote(car, LocalDate.of(2023, 12, 31), 1, 0).rentalCents);
+        assertEquals(45_00 + 49_50, engine.quote(car, LocalDate.of(2023, 11, 30), 2, 0).rentalCents);
+    }
+
+    @Test
+    public void testLongRentalDiscountsAndFees() {
+        Car car = car();
+        LocalDate march = LocalDate.of(2024, 3, 1);
+        assertEquals(0, engine.quote(car, march, 6, 0).discountCents);
+        assertEquals(31_50, engine.quote(car, march, 7, 0).discountCents);   // 10% of 315.00
+        assertEquals(270_00, engine.quote(car, march, 30, 0).discountCents); // 20% of 1350.00
+
+        PricingEngine.Quote quote = engine.quote(car, march, 7, 20_00);
+        assertEquals(315_00 - 31_50 + 20_00, quote.totalCents);
+        assertThrows(IllegalArgumentException.class, () -> engine.quote(car, march, 0, 0));
+    }
+
+    @Test
+    public void testRepeatQuotesComeFromTheCache() {
+        Car car = car();
+        LocalDate day = LocalDate.of(2024, 7, 4);
+        PricingEngine.Quote first = engine.quote(car, day, 3, 0);
+        assertSame(first, engine.quote(car, day, 3, 0));
+        assertEquals(1, engine.getCacheHits());
+        assertEquals(1, engine.getCacheMisses());
+    }
+}
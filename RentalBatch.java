@@ -0,0 +1,164 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+// Replays a command file against the RentalSystem without the interactive menus, one
+// operation per line, and reports operations per second. RentalSystem's per-operation
+// console output is discarded unless --verbose is given; rejected and malformed lines
+// are counted and the first few are listed in the summary.
+//   java VehicleRentalApp --batch <file> [--verbose]
+//
+// Commands (comma separated, # starts a comment; dates default to today):
+//   car,ABC123,Toyota,Corolla,2020,5              (seats)
+//   minibus,ABC124,Ford,Transit,2019,true         (accessible)
+//   truck,ABC125,Ford,F-150,2018,6.5,false        (cargo size, has trailer)
+//   customer,42,Jane Doe
+//   rent,ABC123,42,3[,2025-06-01][,150.00]        (days; no amount: priced by PricingEngine)
+//   return,ABC123,42,10.00[,2025-06-04]           (extra fees)
+//   available
+//   history
+public class RentalBatch {
+    private static final int MAX_LISTED_PROBLEMS = 10;
+
+    public static class Stats {
+        public long lines;
+        public long applied;
+        public long rejected;  // well-formed but refused, e.g. renting a rented vehicle
+        public long malformed;
+        public long nanos;
+        public final Map<String, long[]> byCommand = new TreeMap<>();
+        public final List<String> problems = new ArrayList<>();
+
+        public long operations() {
+            return applied + rejected;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(String.format(
+                "%,d operations (%,d applied, %,d rejected, %,d malformed) in %.1f ms: %,.0f ops/s",
+                operations(), applied, rejected, malformed, nanos / 1e6, operations() / Math.max(nanos / 1e9, 1e-9)));
+            for (Map.Entry<String, long[]> e : byCommand.entrySet()) {
+                sb.append(String.format("%n  %-10s %,10d", e.getKey(), e.getValue()[0]));
+            }
+            for (String problem : problems) sb.append("\n  ").append(problem);
+            if (rejected + malformed > problems.size()) sb.append("\n  ...");
+            return sb.toString();
+        }
+    }
+
+    private final RentalSystem rentalSystem;
+    private final PricingEngine pricing = new PricingEngine();
+    private boolean verbose;
+
+    public RentalBatch(RentalSystem rentalSystem) {
+        this.rentalSystem = rentalSystem;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java VehicleRentalApp --batch <file> [--verbose]");
+            return;
+        }
+        RentalBatch batch = new RentalBatch(RentalSystem.getInstance());
+        batch.verbose(args.length > 1 && args[1].equals("--verbose"));
+        System.out.println(batch.run(Paths.get(args[0])));
+    }
+
+    public RentalBatch verbose(boolean verbose) {
+        this.verbose = verbose;
+        return this;
+    }
+
+    public Stats run(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            return run(reader);
+        }
+    }
+
+    public Stats run(BufferedReader reader) throws IOException {
+        Stats stats = new Stats();
+        PrintStream console = System.out;
+        if (!verbose) System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        long start = System.nanoTime();
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                stats.lines++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] parts = line.split(",", -1);
+                for (int i = 0; i < parts.length; i++) parts[i] = parts[i].trim();
+                String command = parts[0].toLowerCase();
+                try {
+                    String problem = apply(command, parts);
+                    if (problem == null) {
+                        stats.applied++;
+                    } else {
+                        stats.rejected++;
+                        note(stats, "line " + stats.lines + ": " + problem);
+                    }
+                    stats.byCommand.computeIfAbsent(command, k -> new long[1])[0]++;
+                } catch (RuntimeException e) { // bad numbers, dates, plates or field counts
+                    stats.malformed++;
+                    note(stats, "line " + stats.lines + ": malformed (" + e.getMessage() + "): " + line);
+                }
+            }
+        } finally {
+            stats.nanos = System.nanoTime() - start;
+            System.setOut(console);
+        }
+        return stats;
+    }
+
+    private static void note(Stats stats, String problem) {
+        if (stats.problems.size() < MAX_LISTED_PROBLEMS) stats.problems.add(problem);
+    }
+
+    // Returns null if the operation was applied, otherwise why it was refused
+    private String apply(String command, String[] p) {
+        switch (command) {
+            case "car":
+                return addVehicle(p[1], new Car(p[2], p[3], Integer.parseInt(p[4]), Integer.parseInt(p[5])));
+            case "minibus":
+                return addVehicle(p[1], new Minibus(p[2], p[3], Integer.parseInt(p[4]), Boolean.parseBoolean(p[5])));
+            case "truck":
+                return addVehicle(p[1], new PickupTruck(p[2], p[3], Integer.parseInt(p[4]), Double.parseDouble(p[5]), Boolean.parseBoolean(p[6])));
+            case "customer":
+                return rentalSystem.addCustomer(new Customer(Integer.parseInt(p[1]), p[2])) ? null : "duplicate customer " + p[1];
+            case "rent": {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(p[1].toUpperCase());
+                Customer customer = rentalSystem.findCustomerById(Integer.parseInt(p[2]));
+                int days = Integer.parseInt(p[3]);
+                LocalDate date = p.length > 4 && !p[4].isEmpty() ? LocalDate.parse(p[4]) : LocalDate.now();
+                Long amount = p.length > 5 && !p[5].isEmpty() ? Money.parse(p[5]) : null; // as /rent's amount=
+                if (vehicle == null || customer == null) return "vehicle or customer not found";
+                if (days <= 0) return "rental must be at least one day";
+                long cents = amount != null ? amount : pricing.quote(vehicle, date, days, 0).totalCents;
+                return rentalSystem.rentVehicleCents(vehicle, customer, date, cents, date.plusDays(days)) ? null : p[1] + " is not available";
+            }
+            case "return": {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(p[1].toUpperCase());
+                Customer customer = rentalSystem.findCustomerById(Integer.parseInt(p[2]));
+                long fees = Money.parse(p[3]);
+                LocalDate date = p.length > 4 && !p[4].isEmpty() ? LocalDate.parse(p[4]) : LocalDate.now();
+                if (vehicle == null || customer == null) return "vehicle or customer not found";
+                return rentalSystem.returnVehicleCents(vehicle, customer, date, fees) ? null : p[1] + " is not rented";
+            }
+            case "available":
+                rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available);
+                return null;
+            case "history":
+                rentalSystem.displayRentalHistory();
+                return null;
+            default:
+                throw new IllegalArgumentException("unknown command " + command);
+        }
+    }
+
+    private String addVehicle(String plate, Vehicle vehicle) {
+        vehicle.setLicensePlate(plate.toUpperCase());
+        return rentalSystem.addVehicle(vehicle) ? null : "duplicate vehicle " + plate;
+    }
+}
@@ -0,0 +1,828 @@
+import java.io.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Micro-benchmarks for the rental system. Run from a scratch directory: RentalSystem
+// reads and appends vehicles.txt, customers.txt and rental_records.txt in the working directory.
+//   java RentalBenchmark <case> [size]
+public class RentalBenchmark {
+    public static void main(String[] args) throws Exception {
+        String which = args.length > 0 ? args[0] : "all";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        if (which.equals("all") || which.equals("async")) benchAsync(size);
+        if (which.equals("all") || which.equals("compact")) benchCompaction(size);
+        if (which.equals("all") || which.equals("dict")) benchNameDictionary(size);
+        if (which.equals("all") || which.equals("money")) benchMoney(size);
+        if (which.equals("all") || which.equals("quote")) benchQuotes(size);
+        if (which.equals("all") || which.equals("cdc")) benchChangeCapture(size);
+        if (which.equals("all") || which.equals("replica")) benchReplicas(size);
+        if (which.equals("all") || which.equals("snapshot")) benchSnapshotReads(size);
+        if (which.equals("all") || which.equals("export")) benchExport(size);
+        if (which.equals("all") || which.equals("maintenance")) benchMaintenance(size);
+        if (which.equals("all") || which.equals("rollup")) benchRollups(size);
+        if (which.equals("all") || which.equals("offheap")) benchOffHeap(size);
+        if (which.equals("all") || which.equals("segments")) benchSegments(size);
+        if (which.equals("all") || which.equals("overdue")) benchOverdue(size);
+        if (which.equals("all") || which.equals("listing")) benchListing(size);
+        if (which.equals("all") || which.equals("lazy")) benchLazyHistory(size);
+        if (which.equals("all") || which.equals("summary")) benchCustomerSummaries(size);
+    }
+
+    // Same mix of lookups and history queries through the synchronous API on one
+    // thread and through AsyncRentalSystem with everything in flight at once. Then the
+    // blocking writes: rounds of a rent for every fleet vehicle followed by a return for
+    // each, one call at a time versus each round's calls in flight together. Every rent
+    // and return appends to rental_records.txt under the write lock.
+    private static void benchAsync(int ops) throws Exception {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 200);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++) {
+            String plate = plates.get(i % plates.size());
+            if (i % 4 == 0) rentalSystem.getRentalRecordsByVehicle(plate);
+            else rentalSystem.findVehicleByPlate(plate);
+        }
+        report("sync", ops, System.nanoTime() - start);
+
+        try (AsyncRentalSystem async = new AsyncRentalSystem(rentalSystem)) {
+            start = System.nanoTime();
+            List<CompletableFuture<?>> futures = new ArrayList<>(ops);
+            for (int i = 0; i < ops; i++) {
+                String plate = plates.get(i % plates.size());
+                if (i % 4 == 0) futures.add(async.getRentalRecordsByVehicle(plate));
+                else futures.add(async.findVehicleByPlate(plate));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+            report("async", ops, System.nanoTime() - start);
+        }
+
+        Customer customer = rentalSystem.findCustomerById(9000);
+        List<Vehicle> fleet = new ArrayList<>();
+        for (String plate : plates) fleet.add(rentalSystem.findVehicleByPlate(plate));
+        int rounds = Math.max(1, ops / 100 / fleet.size());
+        long writes = rounds * 2L * fleet.size();
+        LocalDate date = LocalDate.of(2025, 1, 1);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // each write prints a line
+        long syncNanos, asyncNanos;
+        try (AsyncRentalSystem async = new AsyncRentalSystem(rentalSystem)) {
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                for (Vehicle v : fleet) rentalSystem.rentVehicle(v, customer, date, 49.99);
+                for (Vehicle v : fleet) rentalSystem.returnVehicle(v, customer, date, 0.0);
+            }
+            syncNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++) {
+                List<CompletableFuture<Boolean>> rents = new ArrayList<>();
+                for (Vehicle v : fleet) rents.add(async.rentVehicle(v, customer, date, 49.99));
+                CompletableFuture.allOf(rents.toArray(new CompletableFuture<?>[0])).join();
+                List<CompletableFuture<Boolean>> returns = new ArrayList<>();
+                for (Vehicle v : fleet) returns.add(async.returnVehicle(v, customer, date, 0.0));
+                CompletableFuture.allOf(returns.toArray(new CompletableFuture<?>[0])).join();
+            }
+            asyncNanos = System.nanoTime() - start;
+        } finally {
+            System.setOut(console);
+        }
+        report("sync rent/return", writes, syncNanos);
+        report("async rent/return", writes, asyncNanos);
+    }
+
+    // Appends `pairs` closed RENT/RETURN pairs straight to rental_records.txt (bypassing
+    // the in-memory history) and times one compaction pass over it.
+    private static void benchCompaction(int pairs) throws Exception {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 200);
+        try (Writer out = new BufferedWriter(new FileWriter(RentalSystem.RECORDS_FILE, true), 1 << 16)) {
+            LocalDate date = LocalDate.of(2024, 1, 1);
+            for (int i = 0; i < pairs; i++) {
+                String plate = plates.get(i % plates.size());
+                out.write(plate + ",9000," + date.plusDays(i % 365) + ",49.99,RENT\n");
+                out.write(plate + ",9000," + date.plusDays(i % 365 + 3) + ",0.0,RETURN\n");
+            }
+        }
+        LogCompactor.Stats stats = new LogCompactor(rentalSystem).compactNow();
+        System.out.println("compaction: " + stats);
+    }
+
+    // Bytes allocated building `count` vehicles from freshly parsed make/model strings
+    // (as loadVehicles does), with the old per-vehicle capitalize versus the dictionary.
+    private static void benchNameDictionary(int count) {
+        String[] makes = {"toyota", "honda", "ford", "tesla", "kia"};
+        String[] models = {"corolla", "civic", "focus", "model 3", "rio"};
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) lines[i] = makes[i % 5] + "," + models[i % 5];
+
+        String[] keep = new String[count * 2];
+        long before = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            String[] parts = lines[i].split(",");
+            keep[2 * i] = NameDictionary.capitalize(parts[0]);
+            keep[2 * i + 1] = NameDictionary.capitalize(parts[1]);
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-24s %,12d B allocated %10.1f ms%n", "capitalize per vehicle", allocatedBytes() - before, nanos / 1e6);
+
+        int[] codes = new int[count * 2];
+        before = allocatedBytes();
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            String[] parts = lines[i].split(",");
+            codes[2 * i] = Vehicle.MAKES.encode(parts[0]);
+            codes[2 * i + 1] = Vehicle.MODELS.encode(parts[1]);
+        }
+        nanos = System.nanoTime() - start;
+        System.out.printf("%-24s %,12d B allocated %10.1f ms (split included in both)%n", "dictionary", allocatedBytes() - before, nanos / 1e6);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean())
+            .getCurrentThreadAllocatedBytes();
+    }
+
+    // Parsing and summing `count` amounts as double versus long cents
+    private static void benchMoney(int count) {
+        String[] texts = new String[count];
+        java.util.Random random = new java.util.Random(42);
+        for (int i = 0; i < count; i++) texts[i] = Money.format(random.nextInt(50_000));
+
+        long start = System.nanoTime();
+        double[] doubles = new double[count];
+        for (int i = 0; i < count; i++) doubles[i] = Double.parseDouble(texts[i]);
+        report("parse double", count, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long[] cents = new long[count];
+        for (int i = 0; i < count; i++) cents[i] = Money.parse(texts[i]);
+        report("parse cents", count, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        double doubleSum = 0;
+        for (double d : doubles) doubleSum += d;
+        report("sum double", count, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        long centSum = 0;
+        for (long c : cents) centSum += c;
+        report("sum cents", count, System.nanoTime() - start);
+
+        System.out.printf("double total %.6f vs exact %s (drift %.6f)%n",
+            doubleSum, Money.format(centSum), doubleSum - Money.toDouble(centSum));
+    }
+
+    // Quotes over a small fleet and rolling start dates, so most requests hit the cache
+    private static void benchQuotes(int count) {
+        PricingEngine pricing = new PricingEngine();
+        Vehicle[] fleet = {
+            new Car("Toyota", "Corolla", 2020, 5), new Car("Kia", "Sedona", 2021, 8),
+            new SportCar("Porsche", "911", 2022, 2, 450, true), new Minibus("Ford", "Transit", 2019, true),
+            new PickupTruck("Ford", "F150", 2020, 1200, true)
+        };
+        LocalDate today = LocalDate.of(2025, 1, 1);
+        long start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += pricing.quote(fleet[i % fleet.length], today.plusDays(i % 90), 1 + i % 14, 0).totalCents;
+        }
+        report("quote", count, System.nanoTime() - start);
+        System.out.printf("cache hits %,d misses %,d (checksum %s)%n", pricing.getCacheHits(), pricing.getCacheMisses(), Money.format(total));
+    }
+
+    // Rent/return cycles with a CDC consumer that stalls on every batch. The writer's
+    // throughput should not depend on the consumer, which catches up from the log afterwards.
+    private static void benchChangeCapture(int cycles) throws Exception {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 200);
+        Customer customer = rentalSystem.findCustomerById(9000);
+        try (ChangeDataCapture cdc = ChangeDataCapture.attach(rentalSystem, 1 << 10)) {
+            ChangeDataCapture.Subscription slow = cdc.subscribe("bench", 256, batch -> Thread.sleep(20));
+            LocalDate date = LocalDate.of(2025, 1, 1);
+            long start = System.nanoTime();
+            for (int i = 0; i < cycles; i++) {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(plates.get(i % plates.size()));
+                rentalSystem.rentVehicleCents(vehicle, customer, date, 49_99);
+                rentalSystem.returnVehicleCents(vehicle, customer, date, 0);
+            }
+            long nanos = System.nanoTime() - start;
+            report("rent+return with cdc", cycles * 2L, nanos);
+            System.out.printf("consumer lag at end of writes: %,d events%n", slow.getLag());
+            start = System.nanoTime();
+            while (slow.getLag() > 0) Thread.sleep(10);
+            System.out.printf("consumer caught up %.1f ms later%n", (System.nanoTime() - start) / 1e6);
+        }
+    }
+
+    // Writer throughput for `cycles` rent/return cycles alone, next to a report loop that
+    // holds the read lock for the whole pass (as displays used to), and next to the same
+    // report over RentalSnapshot. Run with stdout redirected; each write prints a line.
+    private static void benchSnapshotReads(int cycles) throws Exception {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 200);
+        Customer customer = rentalSystem.findCustomerById(9000);
+        String[] modes = {"writes alone", "with locked reports", "with snapshot reports"};
+        for (int mode = 0; mode < modes.length; mode++) {
+            boolean locked = mode == 1;
+            long[] reports = new long[1];
+            Thread reporter = mode == 0 ? null : Thread.ofPlatform().start(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    if (locked) {
+                        rentalSystem.getLock().readLock().lock();
+                        try {
+                            report(rentalSystem.snapshot());
+                        } finally {
+                            rentalSystem.getLock().readLock().unlock();
+                        }
+                    } else {
+                        report(rentalSystem.snapshot());
+                    }
+                    reports[0]++;
+                }
+            });
+            LatencyStats latencies = new LatencyStats();
+            LocalDate date = LocalDate.of(2025, 1, 1);
+            long start = System.nanoTime();
+            for (int i = 0; i < cycles; i++) {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(plates.get(i % plates.size()));
+                long t0 = System.nanoTime();
+                rentalSystem.rentVehicleCents(vehicle, customer, date, 49_99);
+                long t1 = System.nanoTime();
+                rentalSystem.returnVehicleCents(vehicle, customer, date, 0);
+                latencies.record(t1 - t0);
+                latencies.record(System.nanoTime() - t1);
+            }
+            long nanos = System.nanoTime() - start;
+            if (reporter != null) {
+                reporter.interrupt();
+                reporter.join();
+            }
+            System.err.printf("%-24s %,12d ops %10.1f ms %,14.0f ops/s  (%d reports)%n  write %s%n",
+                modes[mode], cycles * 2L, nanos / 1e6, cycles * 2 / (nanos / 1e9), reports[0], latencies.summary());
+        }
+    }
+
+    // A full report: revenue over the history and a status count over the fleet
+    private static long report(RentalSnapshot snapshot) {
+        long total = 0;
+        for (RentalRecord record : snapshot.getRentalHistory()) total += record.getAmountCents();
+        for (Vehicle v : snapshot.getVehicles()) {
+            if (snapshot.statusOf(v) == Vehicle.VehicleStatus.Rented) total++;
+        }
+        return total;
+    }
+
+    // Exports an in-memory history of `count` records in each format, one encoder thread
+    // versus all cores, and reports the heap in use after each export
+    private static void benchExport(int count) throws Exception {
+        RentalHistory history = new RentalHistory();
+        Customer customer = new Customer(1, "Audit, Customer");
+        Vehicle[] fleet = new Vehicle[200];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = new Car("Toyota", "Corolla", 2020, 5);
+            fleet[i].setLicensePlate(String.format("EXP%03d", i));
+        }
+        LocalDate[] dates = new LocalDate[365];
+        for (int i = 0; i < dates.length; i++) dates[i] = LocalDate.of(2025, 1, 1).plusDays(i);
+        for (int i = 0; i < count; i++) {
+            history.addRecord(new RentalRecord(fleet[i % fleet.length], customer, dates[i % dates.length],
+                i % 2 == 0 ? "RENT" : "RETURN", i % 2 == 0 ? 49_99 : 0));
+        }
+        List<RentalRecord> records = history.getRentalHistory();
+        java.nio.file.Path out = java.nio.file.Paths.get("export.out");
+        Object[][] runs = {
+            {"csv, 1 thread", new HistoryExporter().threads(1)},
+            {"csv", new HistoryExporter()},
+            {"jsonl", new HistoryExporter().format(HistoryExporter.Format.JSON_LINES)},
+            {"csv.gz", new HistoryExporter().gzip(true)},
+            {"csv, March only", new HistoryExporter().from(LocalDate.of(2025, 3, 1)).to(LocalDate.of(2025, 3, 31))},
+        };
+        for (Object[] run : runs) {
+            HistoryExporter.Stats stats = ((HistoryExporter) run[1]).export(records, out);
+            System.gc();
+            Runtime rt = Runtime.getRuntime();
+            System.out.printf("%-16s %s, heap in use %,d MB%n", run[0], stats, (rt.totalMemory() - rt.freeMemory()) >> 20);
+        }
+        java.nio.file.Files.deleteIfExists(out);
+    }
+
+    // Nightly maintenance planning over a fleet of `count` vehicles (own data directory),
+    // with a slice of the fleet out on rent and some vehicles old enough to retire
+    private static void benchMaintenance(int count) throws Exception {
+        RentalSystem rentalSystem = RentalSystem.open(java.nio.file.Paths.get("maintenance-bench"));
+        rentalSystem.addCustomer(new Customer(1, "Fleet Customer"));
+        Customer customer = rentalSystem.findCustomerById(1);
+        long start = System.nanoTime();
+        for (int i = rentalSystem.getVehicles().size(); i < count; i++) {
+            Car car = new Car("Toyota", "Corolla", 2000 + i % 25, 5);
+            car.setLicensePlate(PlateCodec.decode(PlateCodec.encode("AAA000") + i));
+            rentalSystem.addVehicle(car);
+        }
+        report("fleet setup", count, System.nanoTime() - start);
+        List<Vehicle> fleet = rentalSystem.getVehicles();
+        LocalDate today = LocalDate.of(2025, 6, 1);
+        for (int i = 0; i < fleet.size(); i += 10) {
+            rentalSystem.rentVehicleCents(fleet.get(i), customer, today, 49_99);
+        }
+        MaintenanceScheduler.Policy policy = new MaintenanceScheduler.Policy();
+        policy.serviceEveryDays = 3; // so the simulated nights below actually service vehicles
+        MaintenanceScheduler scheduler = new MaintenanceScheduler(rentalSystem, policy);
+        for (int night = 0; night < 6; night++) {
+            System.out.println(today.plusDays(night) + ": " + scheduler.runNightly(today.plusDays(night)));
+        }
+        int[] byStatus = new int[Vehicle.VehicleStatus.values().length];
+        for (Vehicle v : rentalSystem.getVehicles()) byStatus[v.getStatus().ordinal()]++;
+        System.out.println("statuses " + Arrays.toString(Vehicle.VehicleStatus.values()) + " = " + Arrays.toString(byStatus));
+    }
+
+    // "Minibus utilization last quarter" by pairing every RENT/RETURN record versus from
+    // the rollups, over `count` synthetic records; backfill timed on 1 thread and all cores
+    private static void benchRollups(int count) {
+        Vehicle[] fleet = new Vehicle[Math.max(400, count / 500)]; // about 250 rentals per vehicle
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = i % 4 == 0 ? new Car("Toyota", "Corolla", 2020, 5)
+                : i % 4 == 1 ? new SportCar("Porsche", "911", 2022, 2, 450, true)
+                : i % 4 == 2 ? new Minibus("Ford", "Transit", 2019, true)
+                : new PickupTruck("Ford", "F150", 2020, 1200, true);
+            fleet[i].setLicensePlate(PlateCodec.decode(PlateCodec.encode("ROL000") + i));
+        }
+        Customer customer = new Customer(1, "Rollup Customer");
+        RentalHistory history = new RentalHistory();
+        LocalDate[] nextFree = new LocalDate[fleet.length];
+        java.util.Random random = new java.util.Random(7);
+        LocalDate epoch = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i + 1 < count; i += 2) { // back-to-back rentals of 1-7 days per vehicle
+            int v = random.nextInt(fleet.length);
+            LocalDate start = nextFree[v] == null ? epoch.plusDays(random.nextInt(30)) : nextFree[v].plusDays(random.nextInt(3));
+            LocalDate end = start.plusDays(1 + random.nextInt(7));
+            history.addRecord(new RentalRecord(fleet[v], customer, start, "RENT", 49_99));
+            history.addRecord(new RentalRecord(fleet[v], customer, end, "RETURN", random.nextInt(3) == 0 ? 10_00 : 0));
+            nextFree[v] = end;
+        }
+        List<RentalRecord> records = history.getRentalHistory();
+        LocalDate last = epoch;
+        for (LocalDate d : nextFree) if (d != null && d.isAfter(last)) last = d;
+        LocalDate from = last.minusDays(180).withDayOfMonth(1);
+        LocalDate to = from.plusMonths(3).minusDays(1);
+
+        long start = System.nanoTime();
+        long rentalDays = 0;
+        java.util.Map<Vehicle, LocalDate> open = new java.util.IdentityHashMap<>();
+        for (RentalRecord record : records) {
+            if (!(record.getVehicle() instanceof Minibus)) continue;
+            if ("RENT".equals(record.getRecordType())) {
+                open.put(record.getVehicle(), record.getRecordDate());
+            } else {
+                LocalDate rented = open.remove(record.getVehicle());
+                LocalDate a = rented.isBefore(from) ? from : rented;
+                LocalDate b = record.getRecordDate().minusDays(1).isAfter(to) ? to : record.getRecordDate().minusDays(1);
+                if (!b.isBefore(a)) rentalDays += java.time.temporal.ChronoUnit.DAYS.between(a, b) + 1;
+            }
+        }
+        report("pair records (query)", 1, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        UtilizationRollups.of(records, 1);
+        report("backfill 1 thread", records.size(), System.nanoTime() - start);
+        start = System.nanoTime();
+        UtilizationRollups rollups = UtilizationRollups.of(records, Runtime.getRuntime().availableProcessors());
+        report("backfill all cores", records.size(), System.nanoTime() - start);
+
+        start = System.nanoTime();
+        UtilizationRollups.Summary summary = rollups.summarize("Minibus", from, to);
+        report("rollup (query)", 1, System.nanoTime() - start);
+        summary.fleetSize = fleet.length / 4; // no RentalSystem attached to count it
+        System.out.println("Minibus " + from + ".." + to + ": " + summary + "; paired records agree: " + (summary.rentalDays == rentalDays));
+    }
+
+    // Heap footprint, full GC time and young GC pauses under allocation churn with `count`
+    // vehicles held as an on-heap list versus rows in an OffHeapVehicleRegistry
+    private static void benchOffHeap(int count) {
+        for (String mode : new String[] {"on-heap list", "off-heap registry"}) {
+            List<Vehicle> list = new ArrayList<>();
+            OffHeapVehicleRegistry registry = mode.startsWith("off") ? new OffHeapVehicleRegistry() : null;
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                Vehicle v = i % 4 == 0 ? new Car("Toyota", "Corolla", 2020, 5)
+                    : i % 4 == 1 ? new SportCar("Porsche", "911", 2022, 2, 450, true)
+                    : i % 4 == 2 ? new Minibus("Ford", "Transit", 2019, true)
+                    : new PickupTruck("Ford", "F150", 2020, 1200, true);
+                v.setLicensePlate(PlateCodec.decode(i));
+                if (registry != null) registry.add(v);
+                else list.add(v);
+            }
+            report(mode + " build", count, System.nanoTime() - start);
+
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapUsed = runtime.totalMemory() - runtime.freeMemory();
+            start = System.nanoTime();
+            for (int i = 0; i < 5; i++) System.gc();
+            long fullGcNanos = (System.nanoTime() - start) / 5;
+
+            // short-lived garbage only: young collections with the fleet as the live set
+            long[] gcBefore = gcTotals();
+            Object[] ring = new Object[1024];
+            for (int i = 0; i < 2_000_000; i++) ring[i & 1023] = new byte[1024];
+            long[] gcAfter = gcTotals();
+            long youngCount = gcAfter[0] - gcBefore[0];
+
+            int rented = 0;
+            start = System.nanoTime();
+            if (registry != null) {
+                for (int row = 0; row < registry.size(); row += 2) {
+                    if (registry.changeStatus(row, Vehicle.VehicleStatus.Available, Vehicle.VehicleStatus.Rented)) rented++;
+                }
+            } else {
+                for (int i = 0; i < list.size(); i += 2) {
+                    list.get(i).setStatus(Vehicle.VehicleStatus.Rented);
+                    rented++;
+                }
+            }
+            report(mode + " rent half", rented, System.nanoTime() - start);
+            System.out.printf("%s: heap %,d KB, off-heap %,d KB, full GC %.1f ms, %d young GCs averaging %.2f ms%n",
+                mode, heapUsed / 1024, registry == null ? 0 : registry.offHeapBytes() / 1024, fullGcNanos / 1e6,
+                youngCount, (gcAfter[1] - gcBefore[1]) / (double) Math.max(1, youngCount));
+            if (registry != null) System.out.println("view of the last row: " + registry.find(PlateCodec.decode(count - 1)).getInfo());
+        }
+    }
+
+    // Size and scan speed of `count` records as rental_records.txt text versus binary
+    // history segments: full scans, and filtered scans that skip segments by footer
+    private static void benchSegments(int count) throws IOException {
+        java.nio.file.Path text = java.nio.file.Paths.get("bench_records.txt");
+        java.nio.file.Path segments = java.nio.file.Paths.get("bench_records.seg");
+        java.util.Random random = new java.util.Random(11);
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        try (Writer out = new BufferedWriter(new FileWriter(text.toFile()))) {
+            for (int i = 0; i < count; i++) {
+                if (i % 500 == 0) day = day.plusDays(1); // about 500 records a day, in date order
+                out.write(PlateCodec.decode(random.nextInt(20_000)) + "," + random.nextInt(50_000) + "," + day + ","
+                    + Money.format(random.nextInt(50_000)) + "," + (i % 2 == 0 ? "RENT" : "RETURN") + "\n");
+            }
+        }
+        LocalDate lastMonth = day.minusDays(30);
+
+        long start = System.nanoTime();
+        long textCents = 0;
+        long textMonth = 0;
+        try (BufferedReader in = new BufferedReader(new FileReader(text.toFile()))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(",");
+                LocalDate date = LocalDate.parse(parts[2]);
+                long cents = Money.parse(parts[3]);
+                textCents += cents;
+                if (!date.isBefore(lastMonth)) textMonth++;
+            }
+        }
+        report("text scan", count, System.nanoTime() - start);
+
+        HistorySegments.Stats converted = HistorySegments.convert(text, segments);
+        report("convert", count, converted.nanos);
+        long[] cents = new long[1];
+        HistorySegments.Stats full = HistorySegments.scan(segments, null, null, null, (plate, id, d, rent, amount, due) -> cents[0] += amount);
+        report("segment scan", full.records, full.nanos);
+        HistorySegments.Stats month = HistorySegments.scan(segments, lastMonth, null, null, (plate, id, d, rent, amount, due) -> { });
+        report("segment scan last 30d", month.records, month.nanos);
+        HistorySegments.Stats customer = HistorySegments.scan(segments, null, null, 42, (plate, id, d, rent, amount, due) -> { });
+        report("segment scan customer", customer.records, customer.nanos);
+
+        System.out.printf("text %,d bytes, segments %,d bytes (%.1fx smaller); totals agree: %b; last 30 days %,d records, %d of %d segments skipped (text: %,d)%n",
+            converted.bytesIn, converted.bytesOut, converted.bytesIn / (double) converted.bytesOut, cents[0] == textCents,
+            month.records, month.segmentsSkipped, month.segments, textMonth);
+    }
+
+    // "Overdue as of today" by correlating RENT and RETURN records across `count` synthetic
+    // records versus from OverdueIndex, plus the cost of keeping the index current. Every
+    // day an eighth of the fleet goes out for 1-7 days; 3% come back 1-30 days late.
+    private static void benchOverdue(int count) {
+        Vehicle[] fleet = new Vehicle[Math.max(1000, count / 100)];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = new Car("Toyota", "Corolla", 2020, 5);
+            fleet[i].setLicensePlate(PlateCodec.decode(i));
+        }
+        Customer customer = new Customer(1, "Overdue Customer");
+        RentalHistory history = new RentalHistory();
+        java.util.Random random = new java.util.Random(5);
+        java.util.TreeMap<LocalDate, List<Vehicle>> returns = new java.util.TreeMap<>();
+        boolean[] out = new boolean[fleet.length];
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        while (history.size() < count) {
+            day = day.plusDays(1);
+            List<Vehicle> returned = returns.remove(day);
+            if (returned != null) {
+                for (Vehicle v : returned) {
+                    history.addRecord(new RentalRecord(v, customer, day, "RETURN", 0));
+                    out[(int) v.getPlateKey()] = false;
+                }
+            }
+            for (int i = 0; i < fleet.length / 8; i++) {
+                int v = random.nextInt(fleet.length);
+                if (out[v]) continue;
+                LocalDate due = day.plusDays(1 + random.nextInt(7));
+                history.addRecord(new RentalRecord(fleet[v], customer, day, "RENT", 49_99, due));
+                out[v] = true;
+                LocalDate back = random.nextInt(100) < 3 ? due.plusDays(1 + random.nextInt(30)) : due;
+                returns.computeIfAbsent(back, d -> new ArrayList<>()).add(fleet[v]);
+            }
+        }
+        List<RentalRecord> records = history.getRentalHistory();
+        LocalDate asOf = day;
+
+        long start = System.nanoTime();
+        java.util.Map<Vehicle, RentalRecord> open = new java.util.IdentityHashMap<>();
+        for (RentalRecord record : records) {
+            if ("RENT".equals(record.getRecordType())) open.put(record.getVehicle(), record);
+            else open.remove(record.getVehicle());
+        }
+        int scanned = 0;
+        for (RentalRecord record : open.values()) {
+            if (record.getDueDate().isBefore(asOf)) scanned++;
+        }
+        report("correlate history", 1, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        OverdueIndex index = OverdueIndex.of(records);
+        report("build index (replay)", records.size(), System.nanoTime() - start);
+        start = System.nanoTime();
+        int overdue = index.overdue(asOf).size();
+        report("overdue (query)", 1, System.nanoTime() - start);
+        start = System.nanoTime();
+        int dueSoon = index.dueWithin(asOf.atTime(9, 0), 48).size();
+        report("due in 48h (query)", 1, System.nanoTime() - start);
+        System.out.printf("%,d open rentals, %,d overdue as of %s (history scan: %,d), %,d due in the next 48 hours%n",
+            index.size(), overdue, asOf, scanned, dueSoon);
+    }
+
+    // Printing a `count`-record history to /dev/null with one printf per row (the old
+    // displayRentalHistory) versus through ConsoleTable, and the first page on its own
+    private static void benchListing(int count) throws IOException {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 50);
+        Customer customer = rentalSystem.findCustomerById(9000);
+        PrintStream console = System.out;
+        try (PrintStream devNull = new PrintStream(new FileOutputStream("/dev/null"))) {
+            System.setOut(devNull);
+            LocalDate date = LocalDate.of(2024, 1, 1);
+            for (int i = rentalSystem.getRentalHistory().size(); i < count; i++) {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(plates.get(i % plates.size()));
+                if (vehicle.getStatus() == Vehicle.VehicleStatus.Available) rentalSystem.rentVehicleCents(vehicle, customer, date, 49_99);
+                else rentalSystem.returnVehicleCents(vehicle, customer, date, 0);
+            }
+            List<RentalRecord> records = rentalSystem.getRentalHistory();
+
+            long start = System.nanoTime();
+            for (RentalRecord record : records) {
+                System.out.printf("| %-9s | %-12s | %-20s | %-12s | $%-11s |%n",
+                    record.getRecordType(), record.getVehicle().getLicensePlate(), record.getCustomer().getCustomerName(),
+                    record.getRecordDate().toString(), Money.format(record.getAmountCents()));
+            }
+            long printfNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            rentalSystem.displayRentalHistory();
+            long tableNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            rentalSystem.displayRentalHistory(r -> r.getCustomer().getCustomerId() == 9000, 0, 20);
+            long pageNanos = System.nanoTime() - start;
+            System.setOut(console);
+            report("printf per row", records.size(), printfNanos);
+            report("ConsoleTable", records.size(), tableNanos);
+            report("first page (filtered)", 20, pageNanos);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // Time to the first vehicle lookup and listing after opening a data directory with
+    // `count` rental records, loading history eagerly versus lazily
+    private static void benchLazyHistory(int count) throws IOException {
+        java.nio.file.Path dir = java.nio.file.Paths.get("lazy-bench");
+        java.nio.file.Files.createDirectories(dir);
+        try (Writer vehicles = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.VEHICLES_FILE).toFile()));
+             Writer customers = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.CUSTOMERS_FILE).toFile()));
+             Writer records = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.RECORDS_FILE).toFile()))) {
+            for (int i = 0; i < 1000; i++) vehicles.write(PlateCodec.decode(i) + ",Toyota,Corolla,2020,Available\n");
+            for (int i = 0; i < 100; i++) customers.write(i + ",Customer " + i + "\n");
+            LocalDate date = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < count; i++) {
+                if (i % 500 == 0) date = date.plusDays(1);
+                records.write(PlateCodec.decode(i % 1000) + "," + (i % 100) + "," + date + ",49.99," + ((i / 1000) % 2 == 0 ? "RENT" : "RETURN") + "\n");
+            }
+        }
+        PrintStream console = System.out;
+        for (int round = 0; round < 2; round++) {
+            for (boolean lazy : new boolean[] {false, true}) {
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                long start = System.nanoTime();
+                RentalSystem rentalSystem = RentalSystem.open(dir, lazy);
+                long opened = System.nanoTime();
+                rentalSystem.findVehicleByPlate(PlateCodec.decode(7));
+                rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available, 0, 20);
+                long firstOp = System.nanoTime();
+                rentalSystem.awaitHistory();
+                long loaded = System.nanoTime();
+                System.setOut(console);
+                System.out.printf("%-6s open %7.1f ms, first lookup + listing page %7.1f ms, history ready %7.1f ms (%,d records)%n",
+                    lazy ? "lazy" : "eager", (opened - start) / 1e6, (firstOp - start) / 1e6, (loaded - start) / 1e6,
+                    rentalSystem.getRentalHistoryCount());
+            }
+        }
+    }
+
+    // Customer summary views over a `count`-record history with a skewed mix of customers
+    // (a few regulars seen most of the time): a history scan per view versus the cache,
+    // then live rentals and returns with the cached summaries checked against fresh scans
+    private static void benchCustomerSummaries(int count) throws IOException {
+        java.nio.file.Path dir = java.nio.file.Paths.get("summary-bench");
+        java.nio.file.Files.createDirectories(dir);
+        int customerCount = 5000;
+        try (Writer vehicles = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.VEHICLES_FILE).toFile()));
+             Writer customers = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.CUSTOMERS_FILE).toFile()));
+             Writer records = new BufferedWriter(new FileWriter(dir.resolve(RentalSystem.RECORDS_FILE).toFile()))) {
+            for (int i = 0; i < 1000; i++) vehicles.write(PlateCodec.decode(i) + ",Toyota,Corolla,2020,Available\n");
+            for (int i = 0; i < customerCount; i++) customers.write(i + ",Customer " + i + "\n");
+            LocalDate date = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < count; i++) {
+                if (i % 500 == 0) date = date.plusDays(1);
+                boolean rent = (i / 1000) % 2 == 0;
+                records.write(PlateCodec.decode(i % 1000) + "," + (i * 7919 % customerCount) + "," + date + ","
+                    + (rent ? "49.99" : "5.00") + "," + (rent ? "RENT" : "RETURN") + "\n");
+            }
+        }
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        RentalSystem rentalSystem;
+        try {
+            rentalSystem = RentalSystem.open(dir, false);
+        } finally {
+            System.setOut(console);
+        }
+        java.util.Random random = new java.util.Random(11);
+        int views = 2000;
+        int[] viewed = new int[views];
+        for (int i = 0; i < views; i++) {
+            // 80% of views go to 50 regulars
+            viewed[i] = random.nextInt(100) < 80 ? random.nextInt(50) : random.nextInt(customerCount);
+        }
+
+        long start = System.nanoTime();
+        long scanned = 0, cold = 0, warm = 0;
+        for (int id : viewed) {
+            for (RentalRecord r : rentalSystem.snapshot().getRentalHistory()) {
+                if (r.getCustomer().getCustomerId() == id) scanned += r.getAmountCents();
+            }
+        }
+        report("scan per view", views, System.nanoTime() - start);
+
+        CustomerSummaryCache cache = CustomerSummaryCache.attach(rentalSystem, 200);
+        start = System.nanoTime();
+        for (int id : viewed) cold += cache.get(id).lifetimeSpendCents;
+        report("summary cache (cold)", views, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int id : viewed) warm += cache.get(id).lifetimeSpendCents;
+        report("summary cache (warm)", views, System.nanoTime() - start);
+        start = System.nanoTime();
+        for (int i = 0; i < views * 100; i++) cache.get(i % 50);
+        report("summary cache (regulars)", views * 100, System.nanoTime() - start);
+        System.out.println(cache.getStats() + (scanned == cold && cold == warm ? "" : ", totals DIFFER from the scan"));
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            LocalDate date = LocalDate.of(2030, 1, 1);
+            for (int i = 0; i < 2000; i++) {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(PlateCodec.decode(random.nextInt(1000)));
+                Customer customer = rentalSystem.findCustomerById(random.nextInt(100));
+                if (vehicle.getStatus() == Vehicle.VehicleStatus.Available) rentalSystem.rentVehicleCents(vehicle, customer, date, 49_99);
+                else rentalSystem.returnVehicleCents(vehicle, customer, date, 1_00);
+                cache.get(random.nextInt(100));
+            }
+        } finally {
+            System.setOut(console);
+        }
+        int stale = 0;
+        CustomerSummaryCache fresh = CustomerSummaryCache.attach(rentalSystem, customerCount);
+        for (int id = 0; id < 100; id++) {
+            CustomerSummaryCache.Summary a = cache.get(id), b = fresh.get(id);
+            if (a.rentals != b.rentals || a.returns != b.returns || a.lastRental != b.lastRental
+                || a.lifetimeSpendCents != b.lifetimeSpendCents) stale++;
+        }
+        System.out.println(cache.getStats() + ", " + stale + " stale summaries after 2,000 live records");
+        cache.close();
+        fresh.close();
+    }
+
+    // Collections and milliseconds spent in GC so far, over all collectors
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (java.lang.management.GarbageCollectorMXBean gc : java.lang.management.ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, gc.getCollectionCount());
+            totals[1] += Math.max(0, gc.getCollectionTime());
+        }
+        return totals;
+    }
+
+    // Replication lag of an in-process follower during `cycles` rent/return cycles, then
+    // read throughput of /vehicles spread over the leader plus 0, 1 and 2 follower JVMs
+    private static void benchReplicas(int cycles) throws Exception {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        List<String> plates = seedFleet(rentalSystem, 200);
+        Customer customer = rentalSystem.findCustomerById(9000);
+        try (ChangeDataCapture cdc = ChangeDataCapture.attach(rentalSystem);
+             ReplicationLeader leader = new ReplicationLeader(cdc, 0);
+             ReplicaFollower follower = new ReplicaFollower("localhost", leader.getPort())) {
+            while (!follower.isCaughtUp()) Thread.sleep(10);
+
+            long[] maxLag = new long[1];
+            Thread sampler = Thread.ofVirtual().start(() -> {
+                try {
+                    while (true) {
+                        maxLag[0] = Math.max(maxLag[0], follower.getLag());
+                        Thread.sleep(1);
+                    }
+                } catch (InterruptedException e) {
+                    // done sampling
+                }
+            });
+            LocalDate date = LocalDate.of(2025, 1, 1);
+            long start = System.nanoTime();
+            for (int i = 0; i < cycles; i++) {
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(plates.get(i % plates.size()));
+                rentalSystem.rentVehicleCents(vehicle, customer, date, 49_99);
+                rentalSystem.returnVehicleCents(vehicle, customer, date, 0);
+            }
+            report("writes on leader", cycles * 2L, System.nanoTime() - start);
+            long written = System.nanoTime();
+            follower.awaitOffset(cdc.getLastOffset(), 60_000);
+            sampler.interrupt();
+            System.out.printf("replica max lag %,d events, caught up %.1f ms after the last write, %d vehicles on both: %b%n",
+                maxLag[0], (System.nanoTime() - written) / 1e6, rentalSystem.getVehicles().size(),
+                rentalSystem.getVehicles().size() == follower.getReplica().getVehicles().size());
+
+            RentalHttpServer http = new RentalHttpServer(rentalSystem, 0);
+            http.start();
+            List<Process> processes = new ArrayList<>();
+            List<String> urls = new ArrayList<>(List.of("http://localhost:" + http.getPort()));
+            try {
+                for (int followers = 0; followers <= 2; followers++) {
+                    if (followers > 0) urls.add("http://localhost:" + startFollowerJvm(leader.getPort(), processes));
+                    System.out.println("leader + " + followers + " follower JVM(s):");
+                    RentalLoadClient.run(urls.toArray(new String[0]), 64, 5, "/vehicles?status=Available");
+                }
+            } finally {
+                for (Process p : processes) p.destroy();
+                http.stop();
+            }
+        }
+    }
+
+    // Starts `java ReplicaFollower <leaderPort> 0` and returns its HTTP port once it has caught up
+    private static int startFollowerJvm(int leaderPort, List<Process> processes) throws Exception {
+        String javaBin = ProcessHandle.current().info().command().orElse("java");
+        Process process = new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+            "ReplicaFollower", Integer.toString(leaderPort), "0").redirectErrorStream(true).start();
+        processes.add(process);
+        CompletableFuture<Integer> port = new CompletableFuture<>();
+        Thread.ofVirtual().start(() -> { // keeps draining so the follower never blocks on stdout
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (line.startsWith("Replica serving on port ")) port.complete(Integer.parseInt(line.split(" ")[4]));
+                }
+            } catch (IOException e) {
+                port.completeExceptionally(e);
+            }
+            port.completeExceptionally(new IOException("follower exited"));
+        });
+        return port.get(60, java.util.concurrent.TimeUnit.SECONDS);
+    }
+
+    // Adds BENxxx cars and one customer unless a previous run already did
+    static List<String> seedFleet(RentalSystem rentalSystem, int count) {
+        List<String> plates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String plate = String.format("BEN%03d", i);
+            if (rentalSystem.findVehicleByPlate(plate) == null) {
+                Car car = new Car("Toyota", "Corolla", 2020, 5);
+                car.setLicensePlate(plate);
+                rentalSystem.addVehicle(car);
+            }
+            plates.add(plate);
+        }
+        if (rentalSystem.findCustomerById(9000) == null)
+            rentalSystem.addCustomer(new Customer(9000, "Bench Customer"));
+        return plates;
+    }
+
+    static void report(String label, long ops, long nanos) {
+        System.out.printf("%-24s %,12d ops %10.1f ms %,14.0f ops/s%n",
+            label, ops, nanos / 1e6, ops / (nanos / 1e9));
+    }
+}
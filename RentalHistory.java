@@ -1,20 +1,51 @@
+import java.time.LocalDate;
 import java.util.List;
 import java.util.ArrayList;
 
+// Append-only, so every query runs over an O(1) snapshot and needs no lock;
+// addRecord must still be serialized by the caller (RentalSystem's write lock)
 public class RentalHistory {
-    private List<RentalRecord> rentalRecords = new ArrayList<>();
+    private final AppendOnlyList<RentalRecord> rentalRecords = new AppendOnlyList<>();
 
     public void addRecord(RentalRecord record) {
         rentalRecords.add(record);
     }
 
+    // Read-only snapshot of the records added so far
     public List<RentalRecord> getRentalHistory() {
-        return rentalRecords;
+        return rentalRecords.snapshot();
+    }
+
+    public RentalRecord getRecord(int index) {
+        return rentalRecords.get(index);
+    }
+
+    public int size() {
+        return rentalRecords.size();
+    }
+
+    // Copy of records [from, from + limit), clamped to the history size
+    public List<RentalRecord> getRecords(int from, int limit) {
+        List<RentalRecord> records = rentalRecords.snapshot();
+        int start = Math.max(0, Math.min(from, records.size()));
+        int end = Math.min(records.size(), start + Math.max(0, limit));
+        return new ArrayList<>(records.subList(start, end));
+    }
+
+    public long getRevenueCents(LocalDate from, LocalDate to) {
+        long total = 0;
+        for (RentalRecord record : rentalRecords.snapshot()) {
+            LocalDate date = record.getRecordDate();
+            if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+                total += record.getAmountCents();
+            }
+        }
+        return total;
     }
 
     public List<RentalRecord> getRentalRecordsByCustomer(String customerName) {
         List<RentalRecord> result = new ArrayList<>();
-        for (RentalRecord record : rentalRecords) {
+        for (RentalRecord record : rentalRecords.snapshot()) {
             if (record.getCustomer().toString().toLowerCase().contains(customerName.toLowerCase())) {
                 result.add(record);
             }
@@ -24,8 +55,10 @@ public class RentalHistory {
 
     public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
         List<RentalRecord> result = new ArrayList<>();
-        for (RentalRecord record : rentalRecords) {
-            if (record.getVehicle().getLicensePlate().equalsIgnoreCase(licensePlate)) {
+        long key = PlateCodec.encode(licensePlate);
+        if (key == PlateCodec.INVALID) return result;
+        for (RentalRecord record : rentalRecords.snapshot()) {
+            if (record.getVehicle().getPlateKey() == key) {
                 result.add(record);
             }
         }
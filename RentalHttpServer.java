@@ -0,0 +1,337 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+// Embedded HTTP/JSON front end for RentalSystem. Each exchange is handled on its own
+// virtual thread. Parameters come from the query string or a form-encoded body.
+//   GET  /vehicles[?status=Available]        GET  /customers[?id=]  (with id: rental summary, cached)
+//   POST /vehicles?type=Car&plate=&make=&model=&year=[&seats=|&accessible=|&cargo=&trailer=]
+//   POST /customers?id=&name=
+//   POST /rent?plate=&customerId=[&amount=|&days=]  (no amount: priced by PricingEngine, default 1 day)
+//   POST /return?plate=&customerId=[&fees=]
+//   GET  /quote?plate=&days=[&start=2025-07-01][&fees=]
+//   GET  /history?plate=  or  /history?customer=  or  /history[?offset=0&limit=100]  (pages of the full history)
+//   GET  /stats                              (customer summary cache hit rate and size)
+public class RentalHttpServer {
+    private static final int HISTORY_PAGE_SIZE = 100;
+    private static final int MAX_HISTORY_PAGE_SIZE = 10_000;
+
+    private final RentalSystem rentalSystem;
+    private final PricingEngine pricing = new PricingEngine();
+    private final CustomerSummaryCache summaries;
+    private final HttpServer server;
+
+    public RentalHttpServer(RentalSystem rentalSystem, int port) throws IOException {
+        this.rentalSystem = rentalSystem;
+        this.summaries = CustomerSummaryCache.attach(rentalSystem);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/vehicles", exchange -> handle(exchange, this::vehicles));
+        server.createContext("/customers", exchange -> handle(exchange, this::customers));
+        server.createContext("/rent", exchange -> handle(exchange, post(this::rent)));
+        server.createContext("/return", exchange -> handle(exchange, post(this::giveBack)));
+        server.createContext("/history", exchange -> handle(exchange, this::history));
+        server.createContext("/quote", exchange -> handle(exchange, this::quote));
+        server.createContext("/stats", exchange -> handle(exchange, this::stats));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        // chunked listings otherwise stall ~40ms per response on Nagle + delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        Housekeeping.start(rentalSystem); // rollups and nightly maintenance; saved again on shutdown
+        RentalHttpServer server = new RentalHttpServer(rentalSystem, port);
+        server.start();
+        System.out.println("Rental service listening on port " + server.getPort());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        summaries.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private interface Handler {
+        void handle(HttpExchange exchange, Map<String, String> params) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try (exchange) {
+            try {
+                handler.handle(exchange, readParams(exchange));
+            } catch (IllegalArgumentException | DateTimeParseException e) { // IAE also covers NumberFormatException
+                sendError(exchange, 400, e);
+            } catch (IllegalStateException e) { // writes sent to a read-only replica
+                sendError(exchange, 405, e);
+            } catch (RuntimeException e) {
+                sendError(exchange, 500, e);
+            }
+        }
+    }
+
+    // Once a streamed listing has sent its 200 the status can no longer change; the
+    // response is cut short instead of getting a second set of headers
+    private static void sendError(HttpExchange exchange, int status, RuntimeException e) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            System.err.println(exchange.getRequestURI() + " failed after the response started: " + e);
+            return;
+        }
+        if (status == 500) System.err.println(exchange.getRequestURI() + " failed: " + e);
+        sendJson(exchange, status, "{\"error\":" + quote(status == 500 ? "internal error" : e.getMessage()) + "}");
+    }
+
+    // State-changing endpoints refuse GET and the like rather than acting on a query string
+    private static Handler post(Handler handler) {
+        return (exchange, params) -> {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendJson(exchange, 405, "{\"error\":\"use POST\"}");
+                return;
+            }
+            handler.handle(exchange, params);
+        };
+    }
+
+    private void vehicles(HttpExchange exchange, Map<String, String> params) throws IOException {
+        if (exchange.getRequestMethod().equals("POST")) {
+            Vehicle vehicle = createVehicle(params);
+            boolean added = rentalSystem.addVehicle(vehicle);
+            sendJson(exchange, added ? 201 : 409, added ? vehicleJson(vehicle) : "{\"error\":\"duplicate plate\"}");
+            return;
+        }
+        Vehicle.VehicleStatus status = params.containsKey("status")
+            ? Vehicle.VehicleStatus.valueOf(params.get("status")) : null;
+        try (Writer out = startStream(exchange)) {
+            out.write('[');
+            boolean first = true;
+            for (Vehicle v : rentalSystem.getVehicles()) {
+                if (status != null && v.getStatus() != status) continue;
+                if (!first) out.write(',');
+                out.write(vehicleJson(v));
+                first = false;
+            }
+            out.write(']');
+        }
+    }
+
+    private void customers(HttpExchange exchange, Map<String, String> params) throws IOException {
+        if (exchange.getRequestMethod().equals("POST")) {
+            Customer customer = new Customer(Integer.parseInt(required(params, "id")), required(params, "name"));
+            boolean added = rentalSystem.addCustomer(customer);
+            sendJson(exchange, added ? 201 : 409, added ? customerJson(customer) : "{\"error\":\"duplicate id\"}");
+            return;
+        }
+        if (params.containsKey("id")) {
+            Customer customer = rentalSystem.findCustomerById(Integer.parseInt(params.get("id")));
+            if (customer == null) {
+                sendJson(exchange, 404, "{\"error\":\"customer not found\"}");
+                return;
+            }
+            CustomerSummaryCache.Summary s = summaries.get(customer);
+            String json = customerJson(customer);
+            sendJson(exchange, 200, json.substring(0, json.length() - 1)
+                + ",\"rentals\":" + s.rentals + ",\"returns\":" + s.returns
+                + ",\"lastRental\":" + (s.lastRental == null ? "null" : "\"" + s.lastRental.getRecordDate() + "\"")
+                + ",\"lifetimeSpend\":" + Money.format(s.lifetimeSpendCents) + "}");
+            return;
+        }
+        try (Writer out = startStream(exchange)) {
+            out.write('[');
+            boolean first = true;
+            for (Customer c : rentalSystem.getCustomers()) {
+                if (!first) out.write(',');
+                out.write(customerJson(c));
+                first = false;
+            }
+            out.write(']');
+        }
+    }
+
+    private void rent(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Vehicle vehicle = rentalSystem.findVehicleByPlate(required(params, "plate"));
+        Customer customer = rentalSystem.findCustomerById(Integer.parseInt(required(params, "customerId")));
+        if (vehicle == null || customer == null) {
+            sendJson(exchange, 404, "{\"error\":\"vehicle or customer not found\"}");
+            return;
+        }
+        int days = Integer.parseInt(params.getOrDefault("days", "1"));
+        if (days < 1) {
+            sendJson(exchange, 400, "{\"error\":\"days must be at least 1\"}");
+            return;
+        }
+        long amountCents = params.containsKey("amount") ? Money.parse(params.get("amount"))
+            : pricing.quote(vehicle, LocalDate.now(), days, 0).totalCents;
+        boolean ok = rentalSystem.rentVehicleCents(vehicle, customer, LocalDate.now(), amountCents, LocalDate.now().plusDays(days));
+        sendJson(exchange, ok ? 200 : 409, "{\"rented\":" + ok + "}");
+    }
+
+    private void giveBack(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Vehicle vehicle = rentalSystem.findVehicleByPlate(required(params, "plate"));
+        Customer customer = rentalSystem.findCustomerById(Integer.parseInt(required(params, "customerId")));
+        if (vehicle == null || customer == null) {
+            sendJson(exchange, 404, "{\"error\":\"vehicle or customer not found\"}");
+            return;
+        }
+        long feesCents = params.containsKey("fees") ? Money.parse(params.get("fees")) : 0;
+        boolean ok = rentalSystem.returnVehicleCents(vehicle, customer, LocalDate.now(), feesCents);
+        sendJson(exchange, ok ? 200 : 409, "{\"returned\":" + ok + "}");
+    }
+
+    private void quote(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Vehicle vehicle = rentalSystem.findVehicleByPlate(required(params, "plate"));
+        if (vehicle == null) {
+            sendJson(exchange, 404, "{\"error\":\"vehicle not found\"}");
+            return;
+        }
+        LocalDate start = params.containsKey("start") ? LocalDate.parse(params.get("start")) : LocalDate.now();
+        long feesCents = params.containsKey("fees") ? Money.parse(params.get("fees")) : 0;
+        PricingEngine.Quote q = pricing.quote(vehicle, start, Integer.parseInt(required(params, "days")), feesCents);
+        sendJson(exchange, 200, "{\"plate\":" + quote(vehicle.getLicensePlate())
+            + ",\"days\":" + q.days + ",\"dailyRate\":" + Money.format(q.dailyRateCents)
+            + ",\"rental\":" + Money.format(q.rentalCents) + ",\"discount\":" + Money.format(q.discountCents)
+            + ",\"fees\":" + Money.format(q.extraFeesCents) + ",\"total\":" + Money.format(q.totalCents) + "}");
+    }
+
+    private void stats(HttpExchange exchange, Map<String, String> params) throws IOException {
+        CustomerSummaryCache.Stats s = summaries.getStats();
+        sendJson(exchange, 200, "{\"summaryCache\":{\"size\":" + s.size + ",\"maxEntries\":" + s.maxEntries
+            + ",\"hits\":" + s.hits + ",\"misses\":" + s.misses + ",\"hitRate\":" + String.format(java.util.Locale.ROOT, "%.4f", s.getHitRate())
+            + ",\"evictions\":" + s.evictions + ",\"updates\":" + s.updates
+            + ",\"estimatedBytes\":" + s.getEstimatedBytes() + "}}");
+    }
+
+    private void history(HttpExchange exchange, Map<String, String> params) throws IOException {
+        List<RentalRecord> records;
+        if (params.containsKey("plate")) {
+            records = rentalSystem.getRentalRecordsByVehicle(required(params, "plate"));
+        } else if (params.containsKey("customer")) {
+            records = rentalSystem.getRentalRecordsByCustomer(required(params, "customer"));
+        } else {
+            // Unfiltered: one page by position, never the whole history in one response
+            int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+            int limit = Integer.parseInt(params.getOrDefault("limit", Integer.toString(HISTORY_PAGE_SIZE)));
+            if (offset < 0 || limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+                throw new IllegalArgumentException("offset must be at least 0 and limit 1 to " + MAX_HISTORY_PAGE_SIZE);
+            }
+            records = rentalSystem.getRentalHistoryPage(offset, limit);
+        }
+        try (Writer out = startStream(exchange)) {
+            out.write('[');
+            boolean first = true;
+            for (RentalRecord r : records) {
+                if (!first) out.write(',');
+                out.write("{\"type\":" + quote(r.getRecordType())
+                    + ",\"plate\":" + quote(r.getVehicle().getLicensePlate())
+                    + ",\"customerId\":" + r.getCustomer().getCustomerId()
+                    + ",\"date\":\"" + r.getRecordDate()
+                    + "\",\"amount\":" + Money.format(r.getAmountCents())
+                    + ",\"due\":" + (r.getDueDate() == null ? "null" : "\"" + r.getDueDate() + "\"") + "}");
+                first = false;
+            }
+            out.write(']');
+        }
+    }
+
+    private static Vehicle createVehicle(Map<String, String> params) {
+        String make = required(params, "make");
+        String model = required(params, "model");
+        int year = Integer.parseInt(required(params, "year"));
+        Vehicle vehicle;
+        switch (required(params, "type")) {
+            case "Car":
+                vehicle = new Car(make, model, year, Integer.parseInt(params.getOrDefault("seats", "5")));
+                break;
+            case "Minibus":
+                vehicle = new Minibus(make, model, year, Boolean.parseBoolean(params.get("accessible")));
+                break;
+            case "PickupTruck":
+                vehicle = new PickupTruck(make, model, year, Double.parseDouble(params.getOrDefault("cargo", "1000")),
+                    Boolean.parseBoolean(params.get("trailer")));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown vehicle type: " + params.get("type"));
+        }
+        vehicle.setLicensePlate(required(params, "plate"));
+        return vehicle;
+    }
+
+    private static String vehicleJson(Vehicle v) {
+        String type = v instanceof Car ? "Car" : v instanceof Minibus ? "Minibus"
+            : v instanceof PickupTruck ? "PickupTruck" : "Unknown";
+        return "{\"type\":\"" + type + "\",\"plate\":" + quote(v.getLicensePlate())
+            + ",\"make\":" + quote(v.getMake()) + ",\"model\":" + quote(v.getModel())
+            + ",\"year\":" + v.getYear() + ",\"status\":\"" + v.getStatus() + "\"}";
+    }
+
+    private static String customerJson(Customer c) {
+        return "{\"id\":" + c.getCustomerId() + ",\"name\":" + quote(c.getCustomerName()) + "}";
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.isEmpty()) throw new IllegalArgumentException("Missing parameter: " + name);
+        return value;
+    }
+
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equals("POST")) {
+            parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) return;
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    // Chunked response: listings are written element by element instead of built in memory
+    private static Writer startStream(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    static String quote(String s) { // JSON string literal, shared with HistoryExporter
+        if (s == null) return "null";
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,62 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Local load generator for RentalHttpServer. Each virtual-thread client issues GET
+// requests back to back for the given duration, then requests/sec and tail latency are printed.
+// Several comma-separated base URLs (a leader and its replicas) spread clients round-robin.
+//   java RentalLoadClient [baseUrl[,baseUrl...]] [clients] [seconds] [path]
+public class RentalLoadClient {
+    public static void main(String[] args) throws Exception {
+        String baseUrls = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        String path = args.length > 3 ? args[3] : "/vehicles?status=Available";
+        run(baseUrls.split(","), clients, seconds, path);
+    }
+
+    // Runs the load and prints the results; returns requests/sec
+    static double run(String[] baseUrls, int clients, int seconds, String path) {
+        // HttpClient.close() leaves a caller-supplied executor running, so it gets its own resource
+        try (ExecutorService httpExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(httpExecutor).build()) {
+            HttpRequest[] requests = new HttpRequest[baseUrls.length];
+            for (int i = 0; i < baseUrls.length; i++) {
+                requests[i] = HttpRequest.newBuilder(URI.create(baseUrls[i] + path)).GET().build();
+            }
+            LatencyStats latencies = new LatencyStats();
+            AtomicInteger errors = new AtomicInteger();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+            long start = System.nanoTime();
+            try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < clients; i++) {
+                    HttpRequest request = requests[i % requests.length];
+                    pool.submit(() -> {
+                        while (System.nanoTime() < deadline) {
+                            long t0 = System.nanoTime();
+                            try {
+                                HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                                if (response.statusCode() >= 400) errors.incrementAndGet();
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                            }
+                            latencies.record(System.nanoTime() - t0);
+                        }
+                        return null;
+                    });
+                }
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%s%s: %d clients, %,d requests in %.1f s = %,.0f req/s, %d errors%n",
+                String.join(",", baseUrls), path, clients, latencies.count(), elapsed, latencies.count() / elapsed, errors.get());
+            System.out.println(latencies.summary());
+            return latencies.count() / elapsed;
+        }
+    }
+}
@@ -4,17 +4,28 @@ public class RentalRecord {
     private Vehicle vehicle;
     private Customer customer;
     private LocalDate recordDate;
-    private double totalAmount;
+    private long amountCents; // exact amount, see Money
     private String recordType; // "RENT" or "RETURN"
+    private LocalDate dueDate; // RENT only: due back by the end of this day; null if not recorded
+    private int previousChangeIndex = -1; // the vehicle's previous status change in the history
 
     public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, double totalAmount, String recordType) {
+        this(vehicle, customer, recordDate, recordType, Money.toCents(totalAmount));
+    }
+
+    public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, String recordType, long amountCents) {
         this.vehicle = vehicle;
         this.customer = customer;
         this.recordDate = recordDate;
-        this.totalAmount = totalAmount;
+        this.amountCents = amountCents;
         this.recordType = recordType;
     }
 
+    public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, String recordType, long amountCents, LocalDate dueDate) {
+        this(vehicle, customer, recordDate, recordType, amountCents);
+        this.dueDate = dueDate;
+    }
+
     public Customer getCustomer(){
     	return customer;
     }
@@ -28,18 +39,34 @@ public class RentalRecord {
     }
     
     public double getTotalAmount() {
-        return totalAmount;
+        return Money.toDouble(amountCents);
+    }
+
+    public long getAmountCents() {
+        return amountCents;
     }
     
     public String getRecordType() {
         return recordType;
     }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    int getPreviousChangeIndex() {
+        return previousChangeIndex;
+    }
+
+    void setPreviousChangeIndex(int index) {
+        previousChangeIndex = index;
+    }
     
     @Override
     public String toString() {
         return recordType + " | Plate: " + vehicle.getLicensePlate() + 
                " | Customer: " + customer.getCustomerName() + 
                " | Date: " + recordDate + 
-               " | Amount: $" + totalAmount;
+               " | Amount: $" + Money.format(amountCents);
     }
 }
\ No newline at end of file
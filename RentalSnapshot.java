@@ -0,0 +1,56 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Point-in-time view of a RentalSystem, taken in O(1) by RentalSystem.snapshot(). Its
+// lists never change once taken, so reports can iterate them without holding any lock
+// while writers carry on. Vehicle status is mutable; use statusOf() rather than
+// Vehicle.getStatus() to get the status as of the snapshot.
+public class RentalSnapshot {
+    private final List<Vehicle> vehicles;
+    private final List<Customer> customers;
+    private final List<RentalRecord> history;
+    private final RentalHistory liveHistory; // to walk back over records added since
+
+    RentalSnapshot(List<Vehicle> vehicles, List<Customer> customers, RentalHistory liveHistory) {
+        this.vehicles = vehicles;
+        this.customers = customers;
+        this.history = liveHistory.getRentalHistory();
+        this.liveHistory = liveHistory;
+    }
+
+    public List<Vehicle> getVehicles() {
+        return vehicles;
+    }
+
+    // Vehicles whose status was `status` at snapshot time; null means all
+    public List<Vehicle> getVehicles(Vehicle.VehicleStatus status) {
+        if (status == null) return vehicles;
+        List<Vehicle> result = new ArrayList<>();
+        for (Vehicle v : vehicles) {
+            if (statusOf(v) == status) result.add(v);
+        }
+        return result;
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<RentalRecord> getRentalHistory() {
+        return history;
+    }
+
+    // Status of the vehicle as of this snapshot. Every RENT/RETURN links back to the
+    // vehicle's previous change, so this undoes only the changes made since the snapshot.
+    public Vehicle.VehicleStatus statusOf(Vehicle vehicle) {
+        Vehicle.VehicleStatus current = vehicle.getStatus(); // read before the change index
+        int index = vehicle.getLastChangeIndex();
+        if (index < history.size()) return current;
+        while (index >= history.size()) {
+            index = liveHistory.getRecord(index).getPreviousChangeIndex();
+        }
+        if (index < 0) return vehicle.getStatusBeforeChanges();
+        return "RENT".equals(liveHistory.getRecord(index).getRecordType())
+            ? Vehicle.VehicleStatus.Rented : Vehicle.VehicleStatus.Available;
+    }
+}
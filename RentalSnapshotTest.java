@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+
+public class RentalSnapshotTest {
+    private RentalSystem rentalSystem;
+    private Car car;
+    private Customer customer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        rentalSystem = RentalSystem.open(Files.createTempDirectory("snapshot-test"));
+        car = new Car("Toyota", "Camry", 2022, 5);
+        car.setLicensePlate("ABC123");
+        rentalSystem.addVehicle(car);
+        customer = new Customer(1, "Ann");
+        rentalSystem.addCustomer(customer);
+    }
+
+    @Test
+    public void testAppendOnlyListSnapshotsKeepTheirPrefix() {
+        AppendOnlyList<Integer> list = new AppendOnlyList<>();
+        list.add(0);
+        List<Integer> one = list.snapshot();
+        for (int i = 1; i < 100; i++) list.add(i); // grows the array several times
+
+        assertEquals(1, one.size());
+        assertEquals(0, (int) one.get(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> one.get(1));
+        assertEquals(100, list.size());
+        assertEquals(99, (int) list.get(99));
+        assertEquals(100, list.snapshot().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(100));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    }
+
+    @Test
+    public void testSnapshotListsDoNotChange() {
+        RentalSnapshot before = rentalSystem.snapshot();
+        rentalSystem.rentVehicle(car, customer, LocalDate.of(2024, 5, 1), 50.0);
+        Car second = new Car("Honda", "Civic", 2021, 5);
+        second.setLicensePlate("XYZ789");
+        rentalSystem.addVehicle(second);
+
+        assertEquals(1, before.getVehicles().size());
+        assertEquals(0, before.getRentalHistory().size());
+        assertEquals(2, rentalSystem.snapshot().getVehicles().size());
+        assertEquals(1, rentalSystem.snapshot().getRentalHistory().size());
+    }
+
+    @Test
+    public void testStatusOfUndoesLaterChanges() {
+        LocalDate day = LocalDate.of(2024, 5, 1);
+        RentalSnapshot available = rentalSystem.snapshot();
+        rentalSystem.rentVehicle(car, customer, day, 50.0);
+        RentalSnapshot rented = rentalSystem.snapshot();
+        rentalSystem.returnVehicle(car, customer, day.plusDays(1), 0.0);
+        RentalSnapshot returned = rentalSystem.snapshot();
+        rentalSystem.rentVehicle(car, customer, day.plusDays(2), 50.0);
+
+        assertEquals(Vehicle.VehicleStatus.Rented, car.getStatus());
+        assertEquals(Vehicle.VehicleStatus.Available, available.statusOf(car));
+        assertEquals(Vehicle.VehicleStatus.Rented, rented.statusOf(car));
+        assertEquals(Vehicle.VehicleStatus.Available, returned.statusOf(car));
+        assertEquals(Vehicle.VehicleStatus.Rented, rentalSystem.snapshot().statusOf(car));
+
+        assertEquals(List.of(car), rented.getVehicles(Vehicle.VehicleStatus.Rented));
+        assertTrue(returned.getVehicles(Vehicle.VehicleStatus.Rented).isEmpty());
+    }
+}
@@ -1,95 +1,191 @@
 import java.util.List;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.io.*;
 import java.nio.file.*; 
 
 public class RentalSystem {
 	private static RentalSystem instance; //added to reflect singleton design task 1.1
-    private List<Vehicle> vehicles = new ArrayList<>();
-    private List<Customer> customers = new ArrayList<>();
+    private static boolean lazyHistoryDefault; // for getInstance(), see useLazyHistory
+    static final String VEHICLES_FILE = "vehicles.txt";
+    static final String CUSTOMERS_FILE = "customers.txt";
+    static final String RECORDS_FILE = "rental_records.txt";
+    static final String RECORDS_ARCHIVE_FILE = "rental_records_archive.txt"; // closed rentals moved out by LogCompactor
+    // append-only, so readers take O(1) snapshots instead of holding the lock (see RentalSnapshot)
+    private AppendOnlyList<Vehicle> vehicles = new AppendOnlyList<>();
+    private PlateIndex plateIndex = new PlateIndex();
+    private AppendOnlyList<Customer> customers = new AppendOnlyList<>();
     private RentalHistory rentalHistory = new RentalHistory();
+    // readers (find/display/history) share the lock, add/rent/return take it exclusively
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<RentalSystemListener> listeners = new CopyOnWriteArrayList<>();
     
+    private final Path dataDir; // where the data files live; the singleton uses the working directory
+    private final boolean replica; // in-memory copy fed by ReplicaFollower; rejects writes
+    // Open once rentalHistory is fully loaded. Everything that reads or appends history
+    // waits on it before taking the lock: the loader needs the read lock to resolve plates.
+    private final CountDownLatch historyLoaded = new CountDownLatch(1);
+
     private RentalSystem() { //added to reflect singleton design (empty constructor)
-    	loadData(); // added for task 1.3
+        this(Paths.get(""), false, lazyHistoryDefault);
+    }
+
+    private RentalSystem(Path dataDir, boolean replica, boolean lazyHistory) {
+        this.dataDir = dataDir;
+        this.replica = replica;
+        if (!replica) loadData(lazyHistory); // added for task 1.3
+        else historyLoaded.countDown();
+    }
+
+    // Independent instance over its own data directory and lock, used for sharded
+    // deployments (ShardedRentalSystem). Everything else should use getInstance().
+    public static RentalSystem open(Path dataDir) throws IOException {
+        return open(dataDir, false);
+    }
+
+    public static RentalSystem open(Path dataDir, boolean lazyHistory) throws IOException {
+        Files.createDirectories(dataDir);
+        return new RentalSystem(dataDir, false, lazyHistory);
+    }
+
+    // Empty read-only instance with no data files. ReplicaFollower fills it from a
+    // leader's change stream through applyReplicated.
+    static RentalSystem replica() {
+        return new RentalSystem(null, true, false);
+    }
+
+    // With lazy history, getInstance() returns once vehicles and customers are loaded and
+    // rental records load on a background thread. Call before the first getInstance().
+    public static synchronized void useLazyHistory(boolean lazy) {
+        lazyHistoryDefault = lazy;
     }
+
     //all following code is for task 1.3
-    private void loadData() {
+    private void loadData(boolean lazyHistory) {
         loadVehicles();
         loadCustomers();
-        loadRentalRecords();
+        if (!lazyHistory) {
+            loadHistory();
+            return;
+        }
+        Thread loader = new Thread(this::loadHistory, "history-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void loadHistory() {
+        try {
+            loadRentalRecords();
+        } finally {
+            historyLoaded.countDown();
+        }
+    }
+
+    public boolean isHistoryLoaded() {
+        return historyLoaded.getCount() == 0;
+    }
+
+    // Blocks until the rental history is loaded; returns at once unless it loads lazily.
+    // Must not be called while holding this system's lock.
+    public void awaitHistory() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                historyLoaded.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private RentalHistory history() {
+        awaitHistory();
+        return rentalHistory;
     }
     private void loadVehicles() {
         try {
-            if (!Files.exists(Paths.get("vehicles.txt"))) {
+            if (!Files.exists(dataFile(VEHICLES_FILE))) {
                 return; // File doesn't exist, nothing to load
             }
             
-            List<String> lines = Files.readAllLines(Paths.get("vehicles.txt"));
+            List<String> lines = Files.readAllLines(dataFile(VEHICLES_FILE));
+            int skipped = 0;
             for (String line : lines) {
-                String[] parts = line.split(",");
-                if (parts.length >= 5) {
-                    String licensePlate = parts[0];
-                    String make = parts[1];
-                    String model = parts[2];
-                    int year = Integer.parseInt(parts[3]);
-                    Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(parts[4]);
-                    
-                    // Create a basic Car (simplified for loading - in real system you'd store vehicle type)
-                    Car vehicle = new Car(make, model, year, 5); // Default seats
-                    vehicle.setLicensePlate(licensePlate);
-                    vehicle.setStatus(status);
-                    vehicles.add(vehicle);
+                Vehicle vehicle;
+                try {
+                    vehicle = parseVehicle(line.split(","));
+                } catch (RuntimeException e) { // bad year or status
+                    vehicle = null;
+                }
+                if (vehicle == null || plateIndex.get(vehicle.getPlateKey()) != null) {
+                    skipped++; // short line, malformed or duplicate plate
+                    continue;
                 }
+                vehicles.add(vehicle);
+                plateIndex.put(vehicle.getPlateKey(), vehicle);
             }
+            reportSkipped(VEHICLES_FILE, skipped);
         } catch (IOException e) {
             System.out.println("Error loading vehicles from file: " + e.getMessage());
         }
     }
     private void loadCustomers() {
         try {
-            if (!Files.exists(Paths.get("customers.txt"))) {
+            if (!Files.exists(dataFile(CUSTOMERS_FILE))) {
                 return; // File doesn't exist, nothing to load
             }
             
-            List<String> lines = Files.readAllLines(Paths.get("customers.txt"));
+            List<String> lines = Files.readAllLines(dataFile(CUSTOMERS_FILE));
+            int skipped = 0;
             for (String line : lines) {
                 String[] parts = line.split(",");
-                if (parts.length >= 2) {
+                try {
                     int customerId = Integer.parseInt(parts[0]);
                     String name = parts[1];
                     customers.add(new Customer(customerId, name));
+                } catch (RuntimeException e) { // short line or bad id
+                    skipped++;
                 }
             }
+            reportSkipped(CUSTOMERS_FILE, skipped);
         } catch (IOException e) {
             System.out.println("Error loading customers from file: " + e.getMessage());
         }
     }
     private void loadRentalRecords() {
+        loadRentalRecords(RECORDS_ARCHIVE_FILE); // archived (older) records come first
+        loadRentalRecords(RECORDS_FILE);
+    }
+    private void loadRentalRecords(String file) {
         try {
-            if (!Files.exists(Paths.get("rental_records.txt"))) {
+            if (!Files.exists(dataFile(file))) {
                 return; // File doesn't exist, nothing to load
             }
             
-            List<String> lines = Files.readAllLines(Paths.get("rental_records.txt"));
+            List<String> lines = Files.readAllLines(dataFile(file));
+            int skipped = 0;
             for (String line : lines) {
-                String[] parts = line.split(",");
-                if (parts.length >= 5) {
-                    String licensePlate = parts[0];
-                    int customerId = Integer.parseInt(parts[1]);
-                    LocalDate recordDate = LocalDate.parse(parts[2]);
-                    double totalAmount = Double.parseDouble(parts[3]);
-                    String recordType = parts[4];
-                    
-                    Vehicle vehicle = findVehicleByPlate(licensePlate);
-                    Customer customer = findCustomerById(customerId);
-                    
-                    if (vehicle != null && customer != null) {
-                        RentalRecord record = new RentalRecord(vehicle, customer, recordDate, totalAmount, recordType);
-                        rentalHistory.addRecord(record);
-                    }
+                RentalRecord record;
+                try {
+                    record = parseRecord(line.split(","));
+                } catch (RuntimeException e) { // bad id, date or amount
+                    record = null;
+                }
+                if (record != null) {
+                    rentalHistory.addRecord(record);
+                } else {
+                    skipped++;
                 }
             }
+            reportSkipped(file, skipped);
         } catch (IOException e) {
             System.out.println("Error loading rental records from file: " + e.getMessage());
         }
@@ -97,7 +193,64 @@ public class RentalSystem {
     
     
     
-    public static RentalSystem getInstance() { //the new method
+    // Bad lines are skipped rather than aborting the load; DataScrubber lists them by line number
+    private static void reportSkipped(String file, int skipped) {
+        if (skipped > 0) {
+            System.out.println("Skipped " + skipped + " unreadable, duplicate or orphaned lines in " + file + " (run DataScrubber for details)");
+        }
+    }
+
+    // Vehicle from a vehicles.txt line, or null if the line is short, the plate malformed
+    // or the type unknown. Lines written before the type column load as a 5-seat Car
+    // marked isTypeUnknown(), and are written back without a type.
+    private static Vehicle parseVehicle(String[] parts) {
+        if (parts.length < 5 || PlateCodec.encode(parts[0]) == PlateCodec.INVALID) {
+            return null;
+        }
+        int year = Integer.parseInt(parts[3]);
+        Vehicle vehicle;
+        if (parts.length == 5) {
+            vehicle = new Car(parts[1], parts[2], year, 5);
+            vehicle.markTypeUnknown();
+        } else {
+            switch (parts[5]) {
+                case "Car":
+                    vehicle = new Car(parts[1], parts[2], year, Integer.parseInt(parts[6]));
+                    break;
+                case "SportCar":
+                    vehicle = new SportCar(parts[1], parts[2], year, Integer.parseInt(parts[6]),
+                        Integer.parseInt(parts[7]), Boolean.parseBoolean(parts[8]));
+                    break;
+                case "Minibus":
+                    vehicle = new Minibus(parts[1], parts[2], year, Boolean.parseBoolean(parts[6]));
+                    break;
+                case "PickupTruck":
+                    vehicle = new PickupTruck(parts[1], parts[2], year, Double.parseDouble(parts[6]), Boolean.parseBoolean(parts[7]));
+                    break;
+                default:
+                    return null;
+            }
+        }
+        vehicle.setLicensePlate(parts[0]);
+        vehicle.setStatus(Vehicle.VehicleStatus.valueOf(parts[4]));
+        return vehicle;
+    }
+
+    // Record from a rental_records.txt line, or null if its vehicle or customer is unknown
+    private RentalRecord parseRecord(String[] parts) {
+        if (parts.length < 5) {
+            return null;
+        }
+        Vehicle vehicle = findVehicleByPlate(parts[0]);
+        Customer customer = findCustomerById(Integer.parseInt(parts[1]));
+        if (vehicle == null || customer == null) {
+            return null;
+        }
+        LocalDate dueDate = parts.length > 5 ? LocalDate.parse(parts[5]) : null; // older lines have no due date
+        return new RentalRecord(vehicle, customer, LocalDate.parse(parts[2]), parts[4], Money.parse(parts[3]), dueDate);
+    }
+
+    public static synchronized RentalSystem getInstance() { //the new method
         if (instance == null) {
             instance = new RentalSystem();
         }
@@ -105,135 +258,443 @@ public class RentalSystem {
     }
 //edited for task 1.4
     public boolean addVehicle(Vehicle vehicle) {
-    	// Check for duplicate license plate
-        if (findVehicleByPlate(vehicle.getLicensePlate()) != null) {
-            return false; // Step 1.4: Return false if duplicate 
-    }
-        vehicles.add(vehicle);
-        saveVehicle(vehicle);
-        return true; // Step 1.4: Return true if successful
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            // Vehicles need a valid plate; check for duplicate license plate
+            if (vehicle.getPlateKey() == PlateCodec.INVALID || plateIndex.get(vehicle.getPlateKey()) != null) {
+                return false; // Step 1.4: Return false if duplicate
+            }
+            vehicles.add(vehicle);
+            plateIndex.put(vehicle.getPlateKey(), vehicle);
+            saveVehicle(vehicle);
+            for (RentalSystemListener l : listeners) l.vehicleAdded(vehicle);
+            return true; // Step 1.4: Return true if successful
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public boolean addCustomer(Customer customer) {
-    	// Check for duplicate customer ID
-        if (findCustomerById(customer.getCustomerId()) != null) {
-            return false; // Step 1.4: Return false if duplicate found
+        checkWritable();
+        lock.writeLock().lock();
+        try {
+            // Check for duplicate customer ID
+            if (findCustomerById(customer.getCustomerId()) != null) {
+                return false; // Step 1.4: Return false if duplicate found
+            }
+
+            customers.add(customer);
+            saveCustomer(customer);
+            for (RentalSystemListener l : listeners) l.customerAdded(customer);
+            return true; // Step 1.4: Return true if successful
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
+        return rentVehicleCents(vehicle, customer, date, Money.toCents(amount));
+    }
+
+    public boolean rentVehicleCents(Vehicle vehicle, Customer customer, LocalDate date, long amountCents) {
+        return rentVehicleCents(vehicle, customer, date, amountCents, null);
+    }
+
+    // dueDate: the vehicle is due back by the end of that day (see OverdueIndex)
+    public boolean rentVehicleCents(Vehicle vehicle, Customer customer, LocalDate date, long amountCents, LocalDate dueDate) {
+        checkWritable();
+        awaitHistory(); // the new record goes after every loaded one
+        lock.writeLock().lock();
+        try {
+            if (vehicle.getStatus() == Vehicle.VehicleStatus.Available) {
+                System.out.println("Vehicle rented to " + customer.getCustomerName());
+                RentalRecord record = new RentalRecord(vehicle, customer, date, "RENT", amountCents, dueDate);
+                addStatusChange(record, Vehicle.VehicleStatus.Rented);
+                saveRecord(record);
+                fireRecordAdded(record);
+                return true;
+            }
+            else {
+                System.out.println("Vehicle is not available for renting.");
+                return false;
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
-        
-        customers.add(customer);
-        saveCustomer(customer);
-        return true; // Step 1.4: Return true if successful
     }
 
+    public boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+        return returnVehicleCents(vehicle, customer, date, Money.toCents(extraFees));
+    }
 
-    public void rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
-        if (vehicle.getStatus() == Vehicle.VehicleStatus.Available) {
-            vehicle.setStatus(Vehicle.VehicleStatus.Rented);
-            rentalHistory.addRecord(new RentalRecord(vehicle, customer, date, amount, "RENT"));
-            System.out.println("Vehicle rented to " + customer.getCustomerName());
-            RentalRecord record = new RentalRecord(vehicle, customer, date, amount, "RENT");
-            rentalHistory.addRecord(record);
-            saveRecord(record);
+    public boolean returnVehicleCents(Vehicle vehicle, Customer customer, LocalDate date, long extraFeesCents) {
+        checkWritable();
+        awaitHistory();
+        lock.writeLock().lock();
+        try {
+            if (vehicle.getStatus() == Vehicle.VehicleStatus.Rented) {
+                System.out.println("Vehicle returned by " + customer.getCustomerName());
+                RentalRecord record = new RentalRecord(vehicle, customer, date, "RETURN", extraFeesCents);
+                addStatusChange(record, Vehicle.VehicleStatus.Available);
+                saveRecord(record);
+                fireRecordAdded(record);
+                return true;
+            }
+            else {
+                System.out.println("Vehicle is not rented.");
+                return false;
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
-        else {
-            System.out.println("Vehicle is not available for renting.");
+    }
+
+    public boolean isReplica() {
+        return replica;
+    }
+
+    private void checkWritable() {
+        if (replica) throw new IllegalStateException("Read-only replica: send writes to the leader");
+    }
+
+    // Applies one change from a leader's stream to a replica. Same in-memory effect as the
+    // write that produced it, without touching data files; listeners still fire.
+    void applyReplicated(ChangeEvent event) {
+        String[] parts = event.getPayload().split(",");
+        lock.writeLock().lock();
+        try {
+            switch (event.getType()) {
+                case VEHICLE_ADDED:
+                    Vehicle vehicle = parseVehicle(parts);
+                    if (vehicle != null && plateIndex.get(vehicle.getPlateKey()) == null) {
+                        vehicles.add(vehicle);
+                        plateIndex.put(vehicle.getPlateKey(), vehicle);
+                        for (RentalSystemListener l : listeners) l.vehicleAdded(vehicle);
+                    }
+                    break;
+                case CUSTOMER_ADDED:
+                    if (parts.length >= 2 && findCustomerById(Integer.parseInt(parts[0])) == null) {
+                        Customer customer = new Customer(Integer.parseInt(parts[0]), parts[1]);
+                        customers.add(customer);
+                        for (RentalSystemListener l : listeners) l.customerAdded(customer);
+                    }
+                    break;
+                case VEHICLE_UPDATED:
+                    Vehicle updated = parts.length >= 5 ? findVehicleByPlate(parts[0]) : null;
+                    if (updated != null) {
+                        updated.setStatus(Vehicle.VehicleStatus.valueOf(parts[4])); // checked by the leader
+                        for (RentalSystemListener l : listeners) l.vehicleUpdated(updated);
+                    }
+                    break;
+                case RENT:
+                case RETURN:
+                    RentalRecord record = parseRecord(parts);
+                    if (record != null) {
+                        addStatusChange(record, event.getType() == ChangeEvent.Type.RENT
+                            ? Vehicle.VehicleStatus.Rented : Vehicle.VehicleStatus.Available);
+                        fireRecordAdded(record);
+                    }
+                    break;
+            }
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
-    public void returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
-        if (vehicle.getStatus() == Vehicle.VehicleStatus.Rented) {
-            vehicle.setStatus(Vehicle.VehicleStatus.Available);
-            rentalHistory.addRecord(new RentalRecord(vehicle, customer, date, extraFees, "RETURN"));
-            System.out.println("Vehicle returned by " + customer.getCustomerName());
-            RentalRecord record = new RentalRecord(vehicle, customer, date, extraFees, "RETURN");
-            rentalHistory.addRecord(record);
-            saveRecord(record);
+    // Maintenance moves (Available <-> UnderMaintenance, -> OutOfService and back through
+    // a service), applied in bulk under one write lock. Each move is checked against the
+    // VehicleStatus state machine; renting and returning must go through rentVehicle and
+    // returnVehicle. These moves are not versioned in the history, so snapshots see them
+    // immediately; vehicles.txt is rewritten so they survive a restart. Returns the
+    // vehicles that actually changed.
+    public List<Vehicle> changeStatuses(List<Vehicle> targets, Vehicle.VehicleStatus status) {
+        if (status == Vehicle.VehicleStatus.Rented) {
+            throw new IllegalArgumentException("Use rentVehicle to rent a vehicle");
         }
-        else {
-            System.out.println("Vehicle is not rented.");
+        checkWritable();
+        List<Vehicle> changed = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            for (Vehicle vehicle : targets) {
+                Vehicle.VehicleStatus current = vehicle.getStatus();
+                if (current != Vehicle.VehicleStatus.Rented && current.canBecome(status)) {
+                    vehicle.setStatus(status);
+                    changed.add(vehicle);
+                    for (RentalSystemListener l : listeners) l.vehicleUpdated(vehicle);
+                }
+            }
+            if (!changed.isEmpty()) saveVehicles();
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
         }
-    }    
+    }
 
+    public boolean changeStatus(Vehicle vehicle, Vehicle.VehicleStatus status) {
+        return !changeStatuses(List.of(vehicle), status).isEmpty();
+    }
+
+    // Appends a RENT/RETURN record and applies its status change, linking the record to
+    // the vehicle's previous change so snapshots can recover older statuses. Write lock held.
+    private void addStatusChange(RentalRecord record, Vehicle.VehicleStatus status) {
+        Vehicle vehicle = record.getVehicle();
+        record.setPreviousChangeIndex(vehicle.getLastChangeIndex());
+        int index = rentalHistory.size();
+        rentalHistory.addRecord(record);
+        vehicle.changeStatus(status, index);
+    }
+
+    // Consistent point-in-time view of vehicles, customers and history in O(1); the
+    // read lock is held only while three references are captured
+    public RentalSnapshot snapshot() {
+        awaitHistory();
+        lock.readLock().lock();
+        try {
+            return new RentalSnapshot(vehicles.snapshot(), customers.snapshot(), rentalHistory);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addListener(RentalSystemListener listener) {
+        addListener(listener, false);
+    }
+
+    // With replay, the listener first receives the current vehicles, customers and history
+    // as added events; no write can slip in between the replay and the subscription.
+    public void addListener(RentalSystemListener listener, boolean replay) {
+        awaitHistory();
+        lock.readLock().lock();
+        try {
+            if (replay) {
+                for (Vehicle v : vehicles.snapshot()) listener.vehicleAdded(v);
+                for (Customer c : customers.snapshot()) listener.customerAdded(c);
+                for (RentalRecord r : rentalHistory.getRentalHistory()) listener.recordAdded(r);
+            }
+            listeners.add(listener);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void removeListener(RentalSystemListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireRecordAdded(RentalRecord record) {
+        for (RentalSystemListener l : listeners) {
+            l.recordAdded(record);
+            l.vehicleUpdated(record.getVehicle());
+        }
+    }
+
+    public List<Vehicle> getVehicles() {
+        return new ArrayList<>(vehicles.snapshot());
+    }
+
+    public List<Customer> getCustomers() {
+        return new ArrayList<>(customers.snapshot());
+    }
+
+    public List<RentalRecord> getRentalHistory() {
+        return new ArrayList<>(history().getRentalHistory());
+    }
+
+    public int getRentalHistoryCount() {
+        return history().size();
+    }
+
+    public List<RentalRecord> getRentalHistoryPage(int offset, int limit) {
+        return history().getRecords(offset, limit);
+    }
+
+    // Sum of all RENT and RETURN amounts dated in [from, to]; null bounds are open
+    public long getRevenueCents(LocalDate from, LocalDate to) {
+        return history().getRevenueCents(from, to);
+    }
+
+    public List<RentalRecord> getRentalRecordsByCustomer(String customerName) {
+        return history().getRentalRecordsByCustomer(customerName);
+    }
+
+    public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
+        return history().getRentalRecordsByVehicle(licensePlate);
+    }
+
+    // Reports print from a snapshot, so long listings never hold up writers
     public void displayVehicles(Vehicle.VehicleStatus status) {
+        displayVehicles(status, 0, Integer.MAX_VALUE);
+    }
+
+    // Prints matching vehicles `offset` to `offset + limit` through a ConsoleTable; the
+    // scan stops as soon as the page is full. Returns true if more vehicles match.
+    public boolean displayVehicles(Vehicle.VehicleStatus status, int offset, int limit) {
+        checkPage(offset, limit);
+        // While the history loads no rent or return can run, so live statuses are current
+        // and the listing need not wait for it
+        RentalSnapshot snapshot = isHistoryLoaded() ? snapshot() : null;
+        List<Vehicle> fleet = snapshot != null ? snapshot.getVehicles() : vehicles.snapshot();
+        ConsoleTable table = new ConsoleTable(System.out);
         // Display appropriate title based on status
-        if (status == null) {
-            System.out.println("\n=== All Vehicles ===");
-        } else {
-            System.out.println("\n=== " + status + " Vehicles ===");
-        }
-        
+        table.endRow().text(status == null ? "=== All Vehicles ===" : "=== " + status + " Vehicles ===").endRow();
+
         // Header with proper column widths
-        System.out.printf("|%-16s | %-12s | %-12s | %-12s | %-6s | %-18s |%n", 
-            " Type", "Plate", "Make", "Model", "Year", "Status");
-        System.out.println("|--------------------------------------------------------------------------------------------|");
-    	  
-        boolean found = false;
-        for (Vehicle vehicle : vehicles) {
-            if (status == null || vehicle.getStatus() == status) {
-                found = true;
-                String vehicleType;
-                if (vehicle instanceof Car) {
-                    vehicleType = "Car";
-                } else if (vehicle instanceof Minibus) {
-                    vehicleType = "Minibus";
-                } else if (vehicle instanceof PickupTruck) {
-                    vehicleType = "Pickup Truck";
-                } else {
-                    vehicleType = "Unknown";
-                }
-                System.out.printf("| %-15s | %-12s | %-12s | %-12s | %-6d | %-18s |%n", 
-                    vehicleType, vehicle.getLicensePlate(), vehicle.getMake(), vehicle.getModel(), vehicle.getYear(), vehicle.getStatus().toString());
+        table.text("|").pad(" Type", 16).text(" | ").pad("Plate", 12).text(" | ").pad("Make", 12).text(" | ")
+            .pad("Model", 12).text(" | ").pad("Year", 6).text(" | ").pad("Status", 18).text(" |").endRow();
+        table.text("|--------------------------------------------------------------------------------------------|").endRow();
+
+        int matched = 0;
+        int shown = 0;
+        boolean more = false;
+        for (Vehicle vehicle : fleet) {
+            Vehicle.VehicleStatus vehicleStatus = snapshot != null ? snapshot.statusOf(vehicle) : vehicle.getStatus();
+            if (status != null && vehicleStatus != status) continue;
+            if (matched++ < offset) continue;
+            if (shown == limit) {
+                more = true;
+                break;
             }
+            shown++;
+            String vehicleType;
+            if (vehicle instanceof Car) {
+                vehicleType = "Car";
+            } else if (vehicle instanceof Minibus) {
+                vehicleType = "Minibus";
+            } else if (vehicle instanceof PickupTruck) {
+                vehicleType = "Pickup Truck";
+            } else {
+                vehicleType = "Unknown";
+            }
+            table.text("| ").pad(vehicleType, 15).text(" | ").pad(vehicle.getLicensePlate(), 12).text(" | ")
+                .pad(vehicle.getMake(), 12).text(" | ").pad(vehicle.getModel(), 12).text(" | ")
+                .pad(vehicle.getYear(), 6).text(" | ").pad(vehicleStatus.toString(), 18).text(" |").endRow();
         }
-        if (!found) {
+        if (matched == 0) {
             if (status == null) {
-                System.out.println("  No Vehicles found.");
+                table.text("  No Vehicles found.").endRow();
             } else {
-                System.out.println("  No vehicles with Status: " + status);
+                table.text("  No vehicles with Status: " + status).endRow();
             }
+        } else if (more || offset > 0) {
+            table.text("  Showing " + (shown == 0 ? "no vehicles" : (offset + 1) + "-" + (offset + shown))
+                + (more ? "; more follow" : "; end of list")).endRow();
         }
-        System.out.println();
+        table.endRow().flush();
+        return more;
     }
 
     public void displayAllCustomers() {
-        for (Customer c : customers) {
-            System.out.println("  " + c.toString());
+        displayCustomers(0, Integer.MAX_VALUE);
+    }
+
+    // Prints customers `offset` to `offset + limit` in the order they were added. Returns
+    // true if more follow.
+    public boolean displayCustomers(int offset, int limit) {
+        checkPage(offset, limit);
+        List<Customer> all = customers.snapshot();
+        ConsoleTable table = new ConsoleTable(System.out);
+        int end = (int) Math.min(all.size(), (long) offset + limit);
+        for (int i = offset; i < end; i++) {
+            table.text("  " + all.get(i)).endRow();
+        }
+        boolean more = end < all.size();
+        if (more || offset > 0) {
+            table.text("  Showing " + (end <= offset ? "no customers" : (offset + 1) + "-" + end)
+                + (more ? "; more follow" : "; end of list")).endRow();
         }
+        table.flush();
+        return more;
     }
     
     public void displayRentalHistory() {
-        if (rentalHistory.getRentalHistory().isEmpty()) {
+        displayRentalHistory(null, 0, Integer.MAX_VALUE);
+    }
+
+    // Prints records `offset` to `offset + limit` among those matching `filter` (null =
+    // all) through a ConsoleTable. Without a filter the page is found by index; with one
+    // the scan stops as soon as the page is full. Returns true if more records match.
+    public boolean displayRentalHistory(Predicate<RentalRecord> filter, int offset, int limit) {
+        checkPage(offset, limit);
+        List<RentalRecord> records = history().getRentalHistory();
+        if (records.isEmpty()) {
             System.out.println("  No rental history found.");
-        } else {
-            // Header with proper column widths
-            System.out.printf("|%-10s | %-12s | %-20s | %-12s | %-12s |%n", 
-                " Type", "Plate", "Customer", "Date", "Amount");
-            System.out.println("|-------------------------------------------------------------------------------|");
-            
-            for (RentalRecord record : rentalHistory.getRentalHistory()) {                
-                System.out.printf("| %-9s | %-12s | %-20s | %-12s | $%-11.2f |%n", 
-                    record.getRecordType(), 
-                    record.getVehicle().getLicensePlate(),
-                    record.getCustomer().getCustomerName(),
-                    record.getRecordDate().toString(),
-                    record.getTotalAmount()
-                );
+            return false;
+        }
+        ConsoleTable table = new ConsoleTable(System.out);
+        // Header with proper column widths
+        table.text("|").pad(" Type", 10).text(" | ").pad("Plate", 12).text(" | ").pad("Customer", 20).text(" | ")
+            .pad("Date", 12).text(" | ").pad("Amount", 12).text(" | ").pad("Due", 12).text(" |").endRow();
+        table.text("|----------------------------------------------------------------------------------------------|").endRow();
+
+        int matched = filter == null ? Math.min(offset, records.size()) : 0;
+        int shown = 0;
+        boolean more = false;
+        for (int i = matched; i < records.size(); i++) {
+            RentalRecord record = records.get(i);
+            if (filter != null && (!filter.test(record) || matched++ < offset)) continue;
+            if (shown == limit) {
+                more = true;
+                break;
             }
-            System.out.println();
+            shown++;
+            table.text("| ").pad(record.getRecordType(), 9).text(" | ").pad(record.getVehicle().getLicensePlate(), 12).text(" | ")
+                .pad(record.getCustomer().getCustomerName(), 20).text(" | ").pad(record.getRecordDate().toString(), 12).text(" | $")
+                .padMoney(record.getAmountCents(), 11).text(" | ")
+                .pad(record.getDueDate() == null ? "" : record.getDueDate().toString(), 12).text(" |").endRow();
         }
+        if (more || offset > 0) {
+            table.text("  Showing " + (shown == 0 ? "no records" : (offset + 1) + "-" + (offset + shown))
+                + (more ? "; more follow" : "; end of history")).endRow();
+        }
+        table.endRow().flush();
+        return more;
     }
     
+    private static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("offset and limit must not be negative");
+    }
+
     public Vehicle findVehicleByPlate(String plate) {
-        for (Vehicle v : vehicles) {
-            if (v.getLicensePlate().equalsIgnoreCase(plate)) {
-                return v;
-            }
+        lock.readLock().lock();
+        try {
+            return plateIndex.get(PlateCodec.encode(plate)); // null for malformed plates
+        } finally {
+            lock.readLock().unlock();
         }
-        return null;
     }
     
+    // Matches on dictionary codes; model may be null to match any model of the make
+    public List<Vehicle> findVehiclesByMakeModel(String make, String model) {
+        List<Vehicle> result = new ArrayList<>();
+        int makeCode = Vehicle.MAKES.lookup(make);
+        int modelCode = model == null ? NameDictionary.NONE : Vehicle.MODELS.lookup(model);
+        if (makeCode == NameDictionary.NONE || (model != null && modelCode == NameDictionary.NONE)) return result;
+        for (Vehicle v : vehicles.snapshot()) {
+            if (v.getMakeCode() == makeCode && (model == null || v.getModelCode() == modelCode)) {
+                result.add(v);
+            }
+        }
+        return result;
+    }
+
+    // Fleet size per make, counted by code
+    public Map<String, Integer> countVehiclesByMake() {
+        List<Vehicle> fleet = vehicles.snapshot(); // taken first, so every make code in it is < size()
+        int[] counts = new int[Vehicle.MAKES.size()];
+        for (Vehicle v : fleet) {
+            if (v.getMakeCode() != NameDictionary.NONE) counts[v.getMakeCode()]++;
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) result.put(Vehicle.MAKES.name(code), counts[code]);
+        }
+        return result;
+    }
+
     public Customer findCustomerById(int id) {
-        for (Customer c : customers)
+        for (Customer c : customers.snapshot())
             if (c.getCustomerId() == id)
                 return c;
         return null;
@@ -242,21 +703,34 @@ public class RentalSystem {
  // Save vehicle to file (called inside addVehicle)
     private void saveVehicle(Vehicle vehicle) {
         try {
-            FileWriter writer = new FileWriter("vehicles.txt", true);
-            writer.write(vehicle.getLicensePlate() + "," + vehicle.getMake() + "," + 
-                        vehicle.getModel() + "," + vehicle.getYear() + "," + 
-                        vehicle.getStatus() + "\n");
+            FileWriter writer = new FileWriter(dataFile(VEHICLES_FILE).toFile(), true);
+            writer.write(vehicleLine(vehicle));
             writer.close();
         } catch (IOException e) {
             System.out.println("Error saving vehicle: " + e.getMessage());
         }
     }
 
+    // Rewrites vehicles.txt with every vehicle's current status (called in changeStatuses).
+    // Written to a temp file and moved into place, so a crash leaves the old or new file.
+    private void saveVehicles() {
+        Path file = dataFile(VEHICLES_FILE);
+        Path tmp = dataFile(VEHICLES_FILE + ".tmp");
+        try {
+            try (Writer writer = new BufferedWriter(new FileWriter(tmp.toFile()))) {
+                for (Vehicle vehicle : vehicles.snapshot()) writer.write(vehicleLine(vehicle));
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Error saving vehicles: " + e.getMessage());
+        }
+    }
+
     // Save customer to file (called inside addCustomer)
     private void saveCustomer(Customer customer) {
         try {
-            FileWriter writer = new FileWriter("customers.txt", true);
-            writer.write(customer.getCustomerId() + "," + customer.getCustomerName() + "\n");
+            FileWriter writer = new FileWriter(dataFile(CUSTOMERS_FILE).toFile(), true);
+            writer.write(customerLine(customer));
             writer.close();
         } catch (IOException e) {
             System.out.println("Error saving customer: " + e.getMessage());
@@ -266,15 +740,56 @@ public class RentalSystem {
     // Save rental record to file (called in rentVehicle and returnVehicle)
     private void saveRecord(RentalRecord record) {
         try {
-            FileWriter writer = new FileWriter("rental_records.txt", true);
-            writer.write(record.getVehicle().getLicensePlate() + "," + 
-                        record.getCustomer().getCustomerId() + "," + 
-                        record.getRecordDate() + "," + 
-                        record.getTotalAmount() + "," + 
-                        record.getRecordType() + "\n");
+            FileWriter writer = new FileWriter(dataFile(RECORDS_FILE).toFile(), true);
+            writer.write(recordLine(record));
             writer.close();
         } catch (IOException e) {
             System.out.println("Error saving rental record: " + e.getMessage());
         }
     }
+
+    // Data file line formats, shared with LogCompactor
+    static String vehicleLine(Vehicle vehicle) {
+        return vehicle.getLicensePlate() + "," + vehicle.getMake() + "," + 
+               vehicle.getModel() + "," + vehicle.getYear() + "," + 
+               vehicle.getStatus() + typeFields(vehicle) + "\n";
+    }
+
+    // ,type,attributes... as parseVehicle reads them back
+    private static String typeFields(Vehicle vehicle) {
+        if (vehicle.isTypeUnknown()) return "";
+        if (vehicle instanceof SportCar) {
+            SportCar car = (SportCar) vehicle;
+            return ",SportCar," + car.getNumSeats() + "," + car.getHorsepower() + "," + car.hasTurbo();
+        }
+        if (vehicle instanceof Car) return ",Car," + ((Car) vehicle).getNumSeats();
+        if (vehicle instanceof Minibus) return ",Minibus," + ((Minibus) vehicle).isAccessible();
+        if (vehicle instanceof PickupTruck) {
+            PickupTruck truck = (PickupTruck) vehicle;
+            return ",PickupTruck," + truck.getCargoSize() + "," + truck.hasTrailer();
+        }
+        return "";
+    }
+
+    static String customerLine(Customer customer) {
+        return customer.getCustomerId() + "," + customer.getCustomerName() + "\n";
+    }
+
+    static String recordLine(RentalRecord record) {
+        return record.getVehicle().getLicensePlate() + "," + 
+               record.getCustomer().getCustomerId() + "," + 
+               record.getRecordDate() + "," + 
+               Money.format(record.getAmountCents()) + "," + 
+               record.getRecordType() +
+               (record.getDueDate() != null ? "," + record.getDueDate() : "") + "\n";
+    }
+
+    Path dataFile(String name) {
+        return dataDir.resolve(name);
+    }
+
+    // Lets LogCompactor swap the data files while no write is in progress
+    ReentrantReadWriteLock getLock() {
+        return lock;
+    }
 }
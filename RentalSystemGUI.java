@@ -1,6 +1,10 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -8,17 +12,90 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RentalSystemGUI extends Application {
-    private RentalSystem rentalSystem = RentalSystem.getInstance();
+    private static final int HISTORY_PAGE_SIZE = 100;
+
+    private RentalSystem rentalSystem; // set once the background load finishes
+    private volatile Housekeeping housekeeping; // started by the background load
     private ObservableList<Vehicle> allVehicles = FXCollections.observableArrayList();
     private ObservableList<Customer> allCustomers = FXCollections.observableArrayList();
-    private ObservableList<RentalRecord> rentalHistory = FXCollections.observableArrayList();
+    private ObservableList<RentalRecord> historyPage = FXCollections.observableArrayList(); // visible rows only
+    // Views of allVehicles by status; a row's set() re-tests just that row, in O(log n)
+    private ObservableList<Vehicle> availableVehicles = new FilteredList<>(allVehicles, v -> v.getStatus() == Vehicle.VehicleStatus.Available);
+    private ObservableList<Vehicle> rentedVehicles = new FilteredList<>(allVehicles, v -> v.getStatus() == Vehicle.VehicleStatus.Rented);
+    private Map<Vehicle, Integer> vehicleIndex = new IdentityHashMap<>(); // row in allVehicles, which is never reordered
+
+    // Changes from RentalSystem arrive on writer threads; they are queued here and
+    // applied to the observable lists in one batch on the FX thread.
+    private final ConcurrentLinkedQueue<Vehicle> addedVehicles = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Vehicle> updatedVehicles = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Customer> addedCustomers = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean historyGrew = new AtomicBoolean();
+    private final AtomicInteger historyCount = new AtomicInteger(); // so the FX thread never waits on the history
+    private final AtomicBoolean applyScheduled = new AtomicBoolean();
+    private final RentalSystemListener changeListener = new RentalSystemListener() {
+        @Override
+        public void vehicleAdded(Vehicle vehicle) {
+            addedVehicles.add(vehicle);
+            scheduleApply();
+        }
+
+        @Override
+        public void vehicleUpdated(Vehicle vehicle) {
+            updatedVehicles.add(vehicle);
+            scheduleApply();
+        }
+
+        @Override
+        public void customerAdded(Customer customer) {
+            addedCustomers.add(customer);
+            scheduleApply();
+        }
+
+        @Override
+        public void recordAdded(RentalRecord record) {
+            historyCount.incrementAndGet();
+            historyGrew.set(true);
+            scheduleApply();
+        }
+    };
 
     // UI Components
     private TableView<Vehicle> vehicleTable = new TableView<>();
     private TableView<Customer> customerTable = new TableView<>();
     private TableView<RentalRecord> rentalTable = new TableView<>();
+    private Pagination historyPager = new Pagination(1, 0);
+    private TextField historyFilterField = new TextField();
+    private ComboBox<String> historySortCombo = new ComboBox<>();
+    private ProgressBar statusProgress = new ProgressBar(0);
+    private Label statusLabel = new Label();
+
+    // Loading, paging, sorting and filtering run here, one task at a time, never on the FX thread
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "rental-gui-loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private List<RentalRecord> historyView; // sorted/filtered history, null = RentalHistory order
+
+    // What the load task hands to the FX thread: finished lists, nothing left to scan
+    private static final class InitialState {
+        RentalSystem rentalSystem;
+        final List<Vehicle> vehicles = new ArrayList<>();
+        final Map<Vehicle, Integer> vehicleIndex = new IdentityHashMap<>();
+        List<Customer> customers;
+    }
 
     public static void main(String[] args) {
         launch(args);
@@ -36,11 +113,64 @@ public class RentalSystemGUI extends Application {
             createDisplayTab()
         );
 
-        Scene scene = new Scene(tabPane, 1000, 700);
+        HBox statusBar = new HBox(10, statusProgress, statusLabel);
+        statusBar.setPadding(new Insets(5));
+        BorderPane root = new BorderPane(tabPane);
+        root.setBottom(statusBar);
+
+        Scene scene = new Scene(root, 1000, 700);
         primaryStage.setScene(scene);
         primaryStage.show();
 
-        refreshData();
+        // The window shows immediately; the data files load in the background
+        tabPane.setDisable(true);
+        Task<InitialState> load = new Task<>() {
+            @Override
+            protected InitialState call() {
+                updateMessage("Loading rental data...");
+                RentalSystem system = RentalSystem.getInstance();
+                housekeeping = Housekeeping.start(system);
+                system.awaitHistory();
+                InitialState state = new InitialState();
+                state.rentalSystem = system;
+                RentalSnapshot snapshot;
+                // snapshot and subscription under one read lock, so no change is missed or applied twice
+                system.getLock().readLock().lock();
+                try {
+                    snapshot = system.snapshot();
+                    historyCount.set(snapshot.getRentalHistory().size());
+                    system.addListener(changeListener);
+                } finally {
+                    system.getLock().readLock().unlock();
+                }
+                for (Vehicle v : snapshot.getVehicles()) {
+                    if (state.vehicleIndex.putIfAbsent(v, state.vehicles.size()) == null) state.vehicles.add(v);
+                }
+                state.customers = new ArrayList<>(snapshot.getCustomers());
+                return state;
+            }
+        };
+        load.setOnSucceeded(e -> {
+            InitialState state = load.getValue();
+            vehicleIndex = state.vehicleIndex;
+            allVehicles.setAll(state.vehicles);
+            allCustomers.setAll(state.customers);
+            rentalSystem = state.rentalSystem;
+            applyPendingChanges(); // whatever changed while the lists were built
+            setHistoryPageCount(historyCount.get());
+            tabPane.setDisable(false);
+            applyHistoryQuery();
+        });
+        load.setOnFailed(e -> showAlert(Alert.AlertType.ERROR, "Error",
+            "Could not load rental data: " + load.getException().getMessage()));
+        runInBackground(load);
+    }
+
+    @Override
+    public void stop() {
+        if (rentalSystem != null) rentalSystem.removeListener(changeListener);
+        if (housekeeping != null) housekeeping.stop();
+        background.shutdownNow();
     }
 
     private Tab createVehicleManagementTab() {
@@ -140,7 +270,6 @@ public class RentalSystemGUI extends Application {
                     accessibleCheck.setSelected(false);
                     trailerCheck.setSelected(false);
                     
-                    refreshData();
                     showAlert(Alert.AlertType.INFORMATION, "Success", "Vehicle added successfully!");
                 }
             } catch (Exception ex) {
@@ -199,7 +328,6 @@ public class RentalSystemGUI extends Application {
                 if (success) {
                     idField.clear();
                     nameField.clear();
-                    refreshData();
                     showAlert(Alert.AlertType.INFORMATION, "Success", "Customer added successfully!");
                 } else {
                     showAlert(Alert.AlertType.ERROR, "Error", "Customer with this ID already exists");
@@ -264,9 +392,10 @@ public class RentalSystemGUI extends Application {
                     return;
                 }
 
-                rentalSystem.rentVehicle(vehicle, customer, LocalDate.now(), amount);
-                refreshData();
-                updateAvailableVehiclesCombo(availableVehiclesCombo);
+                if (!rentalSystem.rentVehicle(vehicle, customer, LocalDate.now(), amount)) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Vehicle is not available for renting");
+                    return;
+                }
                 amountField.clear();
                 showAlert(Alert.AlertType.INFORMATION, "Success", "Vehicle rented successfully!");
             } catch (NumberFormatException ex) {
@@ -309,10 +438,10 @@ public class RentalSystemGUI extends Application {
                     return;
                 }
 
-                rentalSystem.returnVehicle(vehicle, customer, LocalDate.now(), fees);
-                refreshData();
-                updateRentedVehiclesCombo(rentedVehiclesCombo);
-                updateAvailableVehiclesCombo(availableVehiclesCombo);
+                if (!rentalSystem.returnVehicle(vehicle, customer, LocalDate.now(), fees)) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Vehicle is not rented");
+                    return;
+                }
                 feesField.clear();
                 showAlert(Alert.AlertType.INFORMATION, "Success", "Vehicle returned successfully!");
             } catch (NumberFormatException ex) {
@@ -322,11 +451,11 @@ public class RentalSystemGUI extends Application {
 
         returnSection.getChildren().addAll(returnTitle, returnForm);
 
-        // Update combo boxes
-        updateAvailableVehiclesCombo(availableVehiclesCombo);
-        updateCustomerCombo(customersCombo);
-        updateRentedVehiclesCombo(rentedVehiclesCombo);
-        updateCustomerCombo(returnCustomerCombo);
+        // Combo boxes follow the incrementally maintained lists
+        availableVehiclesCombo.setItems(availableVehicles);
+        customersCombo.setItems(allCustomers);
+        rentedVehiclesCombo.setItems(rentedVehicles);
+        returnCustomerCombo.setItems(allCustomers);
 
         mainLayout.getChildren().addAll(rentSection, returnSection);
         tab.setContent(mainLayout);
@@ -343,7 +472,7 @@ public class RentalSystemGUI extends Application {
         // Available Vehicles Tab
         Tab availableTab = new Tab("Available Vehicles");
         TableView<Vehicle> availableTable = createAvailableVehicleTable();
-        availableTable.setItems(getAvailableVehicles());
+        availableTable.setItems(sortedBy(availableTable, availableVehicles));
         availableTab.setContent(availableTable);
 
         // All Vehicles Tab
@@ -359,7 +488,7 @@ public class RentalSystemGUI extends Application {
         // Rental History Tab
         Tab historyTab = new Tab("Rental History");
         setupRentalTable();
-        historyTab.setContent(rentalTable);
+        historyTab.setContent(createHistoryView());
 
         displayTabs.getTabs().addAll(availableTab, allVehiclesTab, customersTab, historyTab);
         tab.setContent(displayTabs);
@@ -449,7 +578,14 @@ public class RentalSystemGUI extends Application {
         statusCol.setCellValueFactory(new PropertyValueFactory<>("status"));
 
         vehicleTable.getColumns().addAll(typeCol, plateCol, makeCol, modelCol, yearCol, statusCol);
-        vehicleTable.setItems(allVehicles);
+        vehicleTable.setItems(sortedBy(vehicleTable, allVehicles));
+    }
+
+    // Column sorting reorders this view, never the backing list, so vehicleIndex stays valid
+    private static <T> SortedList<T> sortedBy(TableView<T> table, ObservableList<T> items) {
+        SortedList<T> sorted = new SortedList<>(items);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        return sorted;
     }
 
     private void setupCustomerTable() {
@@ -486,7 +622,101 @@ public class RentalSystemGUI extends Application {
         amountCol.setCellValueFactory(new PropertyValueFactory<>("totalAmount"));
 
         rentalTable.getColumns().addAll(typeCol, plateCol, customerCol, dateCol, amountCol);
-        rentalTable.setItems(rentalHistory);
+        // the table only holds one page, so sorting is done over the whole history by applyHistoryQuery
+        for (TableColumn<RentalRecord, ?> col : rentalTable.getColumns()) col.setSortable(false);
+        rentalTable.setItems(historyPage);
+    }
+
+    private VBox createHistoryView() {
+        historyFilterField.setPromptText("Filter by plate or customer");
+        historySortCombo.getItems().addAll("Recorded order", "Date (newest first)", "Date (oldest first)", "Amount (highest first)");
+        historySortCombo.setValue("Recorded order");
+        Button applyButton = new Button("Apply");
+        applyButton.setOnAction(e -> applyHistoryQuery());
+        historyFilterField.setOnAction(e -> applyHistoryQuery());
+
+        historyPager.setPageFactory(page -> {
+            loadHistoryPage(page);
+            return rentalTable;
+        });
+
+        HBox controls = new HBox(10, new Label("Filter:"), historyFilterField, new Label("Sort:"), historySortCombo, applyButton);
+        VBox layout = new VBox(10, controls, historyPager);
+        layout.setPadding(new Insets(10));
+        VBox.setVgrow(historyPager, Priority.ALWAYS);
+        return layout;
+    }
+
+    // Builds the sorted/filtered view of the history in the background, then shows page 0
+    private void applyHistoryQuery() {
+        if (rentalSystem == null) return;
+        String filter = historyFilterField.getText().trim().toLowerCase();
+        String sort = historySortCombo.getValue();
+        Task<List<RentalRecord>> query = new Task<>() {
+            @Override
+            protected List<RentalRecord> call() {
+                if (filter.isEmpty() && "Recorded order".equals(sort)) return null;
+                updateMessage("Sorting and filtering rental history...");
+                List<RentalRecord> records = rentalSystem.getRentalHistory();
+                if (!filter.isEmpty()) {
+                    records.removeIf(r -> !r.getVehicle().getLicensePlate().toLowerCase().contains(filter)
+                        && !r.getCustomer().getCustomerName().toLowerCase().contains(filter));
+                }
+                Comparator<RentalRecord> order = null;
+                if ("Date (newest first)".equals(sort)) order = Comparator.comparing(RentalRecord::getRecordDate).reversed();
+                else if ("Date (oldest first)".equals(sort)) order = Comparator.comparing(RentalRecord::getRecordDate);
+                else if ("Amount (highest first)".equals(sort)) order = Comparator.comparingDouble(RentalRecord::getTotalAmount).reversed();
+                if (order != null) records.sort(order);
+                return records;
+            }
+        };
+        query.setOnSucceeded(e -> {
+            historyView = query.getValue();
+            int count = historyView == null ? historyCount.get() : historyView.size();
+            setHistoryPageCount(count);
+            historyPager.setCurrentPageIndex(0);
+            loadHistoryPage(0);
+        });
+        runInBackground(query);
+    }
+
+    // Fetches just the rows of one page from RentalHistory (or the current sorted/filtered view)
+    private void loadHistoryPage(int page) {
+        if (rentalSystem == null) return;
+        List<RentalRecord> view = historyView;
+        Task<List<RentalRecord>> fetch = new Task<>() {
+            @Override
+            protected List<RentalRecord> call() {
+                int from = page * HISTORY_PAGE_SIZE;
+                if (view == null) return rentalSystem.getRentalHistoryPage(from, HISTORY_PAGE_SIZE);
+                int start = Math.min(from, view.size());
+                return new ArrayList<>(view.subList(start, Math.min(view.size(), start + HISTORY_PAGE_SIZE)));
+            }
+        };
+        fetch.setOnSucceeded(e -> {
+            if (historyPager.getCurrentPageIndex() == page && historyView == view) historyPage.setAll(fetch.getValue());
+        });
+        runInBackground(fetch);
+    }
+
+    private void setHistoryPageCount(int recordCount) {
+        historyPager.setPageCount(Math.max(1, (recordCount + HISTORY_PAGE_SIZE - 1) / HISTORY_PAGE_SIZE));
+    }
+
+    // The status bar follows whichever task is currently running
+    private void runInBackground(Task<?> task) {
+        task.runningProperty().addListener((obs, wasRunning, running) -> {
+            if (running) {
+                statusProgress.progressProperty().bind(task.progressProperty());
+                statusLabel.textProperty().bind(task.messageProperty());
+            } else {
+                statusProgress.progressProperty().unbind();
+                statusLabel.textProperty().unbind();
+                statusProgress.setProgress(0);
+                statusLabel.setText("");
+            }
+        });
+        background.submit(task);
     }
 
     private TableView<Vehicle> createAvailableVehicleTable() {
@@ -514,42 +744,44 @@ public class RentalSystemGUI extends Application {
         return table;
     }
 
-    private ObservableList<Vehicle> getAvailableVehicles() {
-        ObservableList<Vehicle> available = FXCollections.observableArrayList();
-        for (Vehicle vehicle : allVehicles) {
-            if (vehicle.getStatus() == Vehicle.VehicleStatus.Available) {
-                available.add(vehicle);
-            }
+    private void scheduleApply() {
+        if (applyScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::applyPendingChanges);
         }
-        return available;
     }
 
-    private void updateAvailableVehiclesCombo(ComboBox<Vehicle> combo) {
-        ObservableList<Vehicle> available = getAvailableVehicles();
-        combo.setItems(available);
-    }
+    // Applies queued changes with a bulk addAll for new rows and an in-place set for status
+    // changes, which the status views pick up row by row, so nothing reloads the whole fleet.
+    private void applyPendingChanges() {
+        applyScheduled.set(false);
+        if (rentalSystem == null) return; // still loading; the load applies the queues when it finishes
 
-    private void updateRentedVehiclesCombo(ComboBox<Vehicle> combo) {
-        ObservableList<Vehicle> rented = FXCollections.observableArrayList();
-        for (Vehicle vehicle : allVehicles) {
-            if (vehicle.getStatus() == Vehicle.VehicleStatus.Rented) {
-                rented.add(vehicle);
+        List<Vehicle> newVehicles = new ArrayList<>();
+        for (Vehicle v; (v = addedVehicles.poll()) != null; ) {
+            if (vehicleIndex.putIfAbsent(v, allVehicles.size() + newVehicles.size()) == null) {
+                newVehicles.add(v);
             }
         }
-        combo.setItems(rented);
-    }
+        allVehicles.addAll(newVehicles);
 
-    private void updateCustomerCombo(ComboBox<Customer> combo) {
-        combo.setItems(allCustomers);
-    }
+        for (Vehicle v; (v = updatedVehicles.poll()) != null; ) {
+            Integer row = vehicleIndex.get(v);
+            if (row == null) continue;
+            allVehicles.set(row, v); // fires a replace: the row re-reads its status and the views re-test it
+        }
 
-    private void refreshData() {
-        // Refresh from RentalSystem (which loads from files)
-        rentalSystem = RentalSystem.getInstance();
-        
-        // Update observable lists
-        allVehicles.setAll(rentalSystem.findVehicleByPlate("")); // Get all vehicles
-        allCustomers.clear(); 
+        List<Customer> newCustomers = new ArrayList<>();
+        for (Customer c; (c = addedCustomers.poll()) != null; ) newCustomers.add(c);
+        allCustomers.addAll(newCustomers);
+
+        // New records only change the page count of the unfiltered history; the last page
+        // is refetched if it is the one on screen. Filtered views update on the next Apply.
+        if (historyGrew.getAndSet(false) && historyView == null) {
+            setHistoryPageCount(historyCount.get());
+            if (historyPager.getCurrentPageIndex() == historyPager.getPageCount() - 1) {
+                loadHistoryPage(historyPager.getCurrentPageIndex());
+            }
+        }
     }
 
     private void showAlert(Alert.AlertType alertType, String title, String message) {
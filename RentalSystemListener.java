@@ -0,0 +1,14 @@
+// Change notifications from RentalSystem. Callbacks run on the writer's thread while
+// RentalSystem holds its write lock, so implementations must be quick and must not
+// call back into RentalSystem; hand the change off (e.g. Platform.runLater) instead.
+public interface RentalSystemListener {
+    default void vehicleAdded(Vehicle vehicle) {}
+
+    // status (or other state) of an existing vehicle changed; a rent or return fires
+    // recordAdded first, then vehicleUpdated for its vehicle
+    default void vehicleUpdated(Vehicle vehicle) {}
+
+    default void customerAdded(Customer customer) {}
+
+    default void recordAdded(RentalRecord record) {}
+}
@@ -0,0 +1,131 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Read-only copy of a leader's RentalSystem, usually in another JVM. It connects to a
+// ReplicationLeader, applies the change stream to an in-memory replica, and reconnects
+// from its last applied offset whenever the connection drops. Reads go to getReplica();
+// its write methods throw IllegalStateException.
+//   java ReplicaFollower [leaderPort] [httpPort]
+public class ReplicaFollower implements AutoCloseable {
+    private static final int READ_TIMEOUT_MILLIS = 5000; // leader heartbeats every 100 ms
+    private static final long RETRY_MILLIS = 500;
+
+    private final String host;
+    private final int port;
+    private final RentalSystem replica = RentalSystem.replica();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+    private volatile long appliedOffset = -1;
+    private volatile long leaderOffset = -1; // latest head the leader reported
+    private volatile boolean heardHead;
+    private volatile long lastContactNanos = System.nanoTime();
+
+    public ReplicaFollower(String host, int port) {
+        this.host = host;
+        this.port = port;
+        this.thread = Thread.ofVirtual().name("replica-follower").start(this::follow);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int leaderPort = args.length > 0 ? Integer.parseInt(args[0]) : ReplicationLeader.DEFAULT_PORT;
+        int httpPort = args.length > 1 ? Integer.parseInt(args[1]) : 8081;
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        ReplicaFollower follower = new ReplicaFollower("localhost", leaderPort);
+        while (!follower.isCaughtUp()) Thread.sleep(10);
+        RentalHttpServer http = new RentalHttpServer(follower.getReplica(), httpPort);
+        http.start();
+        System.out.println("Replica serving on port " + http.getPort() + " at offset " + follower.getAppliedOffset());
+        while (true) {
+            Thread.sleep(5000);
+            System.out.println("Replica at offset " + follower.getAppliedOffset() + ", lag " + follower.getLag()
+                + " event(s), last heard from leader " + follower.getMillisSinceContact() + " ms ago");
+        }
+    }
+
+    public RentalSystem getReplica() {
+        return replica;
+    }
+
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    // Changes the leader has published that this replica has not applied yet
+    public long getLag() {
+        return Math.max(0, leaderOffset - appliedOffset);
+    }
+
+    // Grows while the leader is unreachable, when getLag() alone would look healthy
+    public long getMillisSinceContact() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastContactNanos);
+    }
+
+    public boolean isCaughtUp() {
+        return heardHead && appliedOffset >= leaderOffset;
+    }
+
+    // Waits until the replica has applied `offset`, e.g. to read a write just made on the leader
+    public boolean awaitOffset(long offset, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (appliedOffset < offset) {
+            if (System.nanoTime() > deadline) return false;
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private void follow() {
+        while (running) {
+            try (Socket s = new Socket(host, port)) {
+                socket = s;
+                s.setSoTimeout(READ_TIMEOUT_MILLIS);
+                s.setTcpNoDelay(true);
+                Writer out = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8);
+                out.write("FROM " + appliedOffset + "\n");
+                out.flush();
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lastContactNanos = System.nanoTime();
+                    if (line.startsWith("HEAD,")) {
+                        leaderOffset = Math.max(leaderOffset, Long.parseLong(line.substring(5)));
+                        heardHead = true;
+                        continue;
+                    }
+                    ChangeEvent event = ChangeEvent.parseLogLine(line);
+                    if (event.getOffset() <= appliedOffset) continue; // redelivered after a reconnect
+                    if (event.getOffset() != appliedOffset + 1) {
+                        throw new IOException("gap in change stream at offset " + (appliedOffset + 1));
+                    }
+                    replica.applyReplicated(event);
+                    appliedOffset = event.getOffset();
+                    if (appliedOffset > leaderOffset) leaderOffset = appliedOffset;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running) System.out.println("Replication from " + host + ":" + port + " interrupted: " + e.getMessage());
+            }
+            if (running) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        Socket s = socket;
+        if (s != null) s.close();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Serves a leader's change stream (ChangeDataCapture) to ReplicaFollower processes over
+// a loopback TCP socket. A follower sends "FROM <offset>" with the last offset it has
+// applied, then receives every later change-log line. While the stream is idle the
+// leader also sends "HEAD,<offset>" heartbeats so followers can report their lag.
+//   java ReplicationLeader [replicationPort] [httpPort]
+public class ReplicationLeader implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7070;
+    private static final long HEARTBEAT_MILLIS = 100;
+    private static final int MAX_BATCH = 1024;
+
+    private final ChangeDataCapture cdc;
+    private final ServerSocket serverSocket;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+
+    public ReplicationLeader(ChangeDataCapture cdc, int port) throws IOException {
+        this.cdc = cdc;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("replication-accept").start(this::acceptFollowers);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int httpPort = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        ReplicationLeader leader = new ReplicationLeader(ChangeDataCapture.attach(rentalSystem), port);
+        RentalHttpServer http = new RentalHttpServer(rentalSystem, httpPort);
+        http.start();
+        System.out.println("Leader: HTTP on port " + http.getPort() + ", replication on port " + leader.getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    private void acceptFollowers() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().name("replication-" + socket.getPort()).start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.out.println("Error accepting follower: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        followers.add(socket);
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("FROM ")) return;
+            long from = Long.parseLong(hello.substring(5).trim());
+
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+            ChangeDataCapture.Subscription stream = cdc.tail(from, MAX_BATCH, batch -> {
+                synchronized (out) {
+                    for (ChangeEvent event : batch) out.write(event.toLogLine());
+                    out.flush();
+                }
+            });
+            try {
+                // the heartbeat write is also what notices a follower that went away
+                while (!socket.isClosed()) {
+                    Thread.sleep(HEARTBEAT_MILLIS);
+                    synchronized (out) {
+                        out.write("HEAD," + cdc.getLastOffset() + "\n");
+                        out.flush();
+                    }
+                }
+            } finally {
+                stream.close();
+            }
+        } catch (IOException | NumberFormatException e) {
+            // follower disconnected or sent garbage; it reconnects from its own offset
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : followers) socket.close();
+    }
+}
@@ -0,0 +1,143 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+// Router over N independent RentalSystem shards (e.g. one per branch), each with its own
+// data directory <baseDir>/shard-<i> and its own lock, so writes on different shards
+// never contend. Vehicles live on the shard picked by the partitioner (plate hash by
+// default); customers are registered on every shard so any shard can rent to them.
+// Fleet-wide queries run on all shards in parallel and merge the results.
+public class ShardedRentalSystem implements AutoCloseable {
+    private final RentalSystem[] shards;
+    private final ToIntFunction<String> partitioner;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedRentalSystem(Path baseDir, int shardCount) throws IOException {
+        this(baseDir, shardCount, null);
+    }
+
+    // partitioner maps an upper-case plate to a shard index in [0, shardCount),
+    // e.g. by branch prefix; null means hash partitioning
+    public ShardedRentalSystem(Path baseDir, int shardCount, ToIntFunction<String> partitioner) throws IOException {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be > 0");
+        this.shards = new RentalSystem[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = RentalSystem.open(baseDir.resolve("shard-" + i));
+        }
+        this.partitioner = partitioner != null ? partitioner : plate -> Math.floorMod(plate.hashCode(), shardCount);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public RentalSystem getShard(int index) {
+        return shards[index];
+    }
+
+    public RentalSystem shardFor(String plate) {
+        int index = partitioner.applyAsInt(plate.toUpperCase());
+        if (index < 0 || index >= shards.length) throw new IllegalArgumentException("No shard " + index + " for plate " + plate);
+        return shards[index];
+    }
+
+    public boolean addVehicle(Vehicle vehicle) {
+        return shardFor(vehicle.getLicensePlate()).addVehicle(vehicle);
+    }
+
+    // Adds the customer to every shard, or to none if any shard already has the id, so the
+    // shards' customer lists never diverge. Synchronized so two registrations of one id
+    // can't both pass the check.
+    public synchronized boolean addCustomer(Customer customer) {
+        for (RentalSystem shard : shards) {
+            if (shard.findCustomerById(customer.getCustomerId()) != null) return false;
+        }
+        for (RentalSystem shard : shards) {
+            shard.addCustomer(new Customer(customer.getCustomerId(), customer.getCustomerName()));
+        }
+        return true;
+    }
+
+    public Vehicle findVehicleByPlate(String plate) {
+        return shardFor(plate).findVehicleByPlate(plate);
+    }
+
+    public Customer findCustomerById(int id) {
+        return shards[0].findCustomerById(id);
+    }
+
+    public boolean rentVehicle(String plate, int customerId, LocalDate date, double amount) {
+        RentalSystem shard = shardFor(plate);
+        Vehicle vehicle = shard.findVehicleByPlate(plate);
+        Customer customer = shard.findCustomerById(customerId);
+        return vehicle != null && customer != null && shard.rentVehicle(vehicle, customer, date, amount);
+    }
+
+    public boolean returnVehicle(String plate, int customerId, LocalDate date, double extraFees) {
+        RentalSystem shard = shardFor(plate);
+        Vehicle vehicle = shard.findVehicleByPlate(plate);
+        Customer customer = shard.findCustomerById(customerId);
+        return vehicle != null && customer != null && shard.returnVehicle(vehicle, customer, date, extraFees);
+    }
+
+    public List<RentalRecord> getRentalRecordsByVehicle(String plate) {
+        return shardFor(plate).getRentalRecordsByVehicle(plate);
+    }
+
+    // Scatter-gather queries across all shards
+
+    public List<Vehicle> getVehicles(Vehicle.VehicleStatus status) {
+        return flatten(scatter(shard -> {
+            List<Vehicle> result = shard.getVehicles();
+            if (status != null) result.removeIf(v -> v.getStatus() != status);
+            return result;
+        }));
+    }
+
+    public List<RentalRecord> getRentalRecordsByCustomer(String customerName) {
+        return flatten(scatter(shard -> shard.getRentalRecordsByCustomer(customerName)));
+    }
+
+    public int countVehicles(Vehicle.VehicleStatus status) {
+        int total = 0;
+        for (int count : scatter(shard -> {
+            int n = 0;
+            for (Vehicle v : shard.getVehicles()) if (status == null || v.getStatus() == status) n++;
+            return n;
+        })) {
+            total += count;
+        }
+        return total;
+    }
+
+    // Runs the query on every shard in parallel; results are in shard order
+    private <T> List<T> scatter(Function<RentalSystem, T> query) {
+        List<CompletableFuture<T>> parts = new ArrayList<>(shards.length);
+        for (RentalSystem shard : shards) {
+            parts.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+        }
+        List<T> results = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> part : parts) {
+            results.add(part.join());
+        }
+        return results;
+    }
+
+    private static <T> List<T> flatten(List<List<T>> parts) {
+        List<T> merged = new ArrayList<>();
+        for (List<T> part : parts) merged.addAll(part);
+        return merged;
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Per-day, per-vehicle-type rollups of the rental history: vehicles out at the end of
+// each day (= rental-days), rentals started and revenue. Time-series queries read the
+// rollups in O(days) instead of pairing RENT/RETURN records.
+//
+// On attach, the rollups come from utilization_rollups.txt if it covers exactly the
+// history that was loaded. Otherwise they are backfilled from a snapshot in parallel
+// chunks, and each chunk builds difference arrays that are summed and prefix-summed.
+// From then on every recordAdded updates them incrementally. save() persists them, and
+// start() saves them periodically.
+//
+// Vehicles loaded from a vehicles.txt written before the type column come back as Cars
+// (Vehicle.isTypeUnknown()); per-type queries refuse to answer while any are in the fleet
+// or history rather than count them as Cars.
+public class UtilizationRollups implements RentalSystemListener {
+    public static final String ROLLUP_FILE = "utilization_rollups.txt";
+    public static final String[] TYPES = {"Car", "Sport Car", "Minibus", "Pickup Truck"};
+
+    public static class DayRollup {
+        public final LocalDate date;
+        public final int vehiclesOut;
+        public final int rentals;
+        public final long revenueCents;
+
+        DayRollup(LocalDate date, int vehiclesOut, int rentals, long revenueCents) {
+            this.date = date;
+            this.vehiclesOut = vehiclesOut;
+            this.rentals = rentals;
+            this.revenueCents = revenueCents;
+        }
+    }
+
+    public static class Summary {
+        public long days;
+        public long rentalDays;
+        public long rentals;
+        public long revenueCents;
+        public int fleetSize;
+
+        // Share of the type's fleet-days spent on rent
+        public double getUtilization() {
+            return fleetSize == 0 || days == 0 ? 0 : (double) rentalDays / (fleetSize * days);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d days: %,d rental-days, %,d rentals, $%s revenue, %.1f%% utilization of %,d vehicles",
+                days, rentalDays, rentals, Money.format(revenueCents), getUtilization() * 100, fleetSize);
+        }
+    }
+
+    private final RentalSystem rentalSystem;
+    private LocalDate baseDay;   // day index 0; all fields guarded by this
+    private int days;            // days covered, from baseDay
+    private int[][] out = new int[TYPES.length][0];
+    private int[][] rentals = new int[TYPES.length][0];
+    private long[][] revenue = new long[TYPES.length][0];
+    private long recordsApplied;
+    private long untypedRecords; // applied records whose vehicle type is unknown
+    private List<RentalRecord> pending = new ArrayList<>(); // records that arrive while backfilling
+    private ScheduledExecutorService saver;
+
+    public static UtilizationRollups attach(RentalSystem rentalSystem) {
+        return attach(rentalSystem, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static UtilizationRollups attach(RentalSystem rentalSystem, int threads) {
+        UtilizationRollups rollups = new UtilizationRollups(rentalSystem);
+        List<RentalRecord> history;
+        // snapshot and subscription under one read lock, so no record is missed or counted twice
+        rentalSystem.awaitHistory(); // not under the lock; a lazy loader needs it
+        rentalSystem.getLock().readLock().lock();
+        try {
+            history = rentalSystem.snapshot().getRentalHistory();
+            rentalSystem.addListener(rollups);
+        } finally {
+            rentalSystem.getLock().readLock().unlock();
+        }
+        if (rollups.hasUntypedVehicles() || !rollups.load(history.size())) rollups.backfill(history, threads); // a backfill counts them
+        synchronized (rollups) {
+            for (RentalRecord record : rollups.pending) rollups.apply(record);
+            rollups.pending = null;
+        }
+        return rollups;
+    }
+
+    private UtilizationRollups(RentalSystem rentalSystem) {
+        this.rentalSystem = rentalSystem;
+    }
+
+    // Rollups of an in-memory history with no RentalSystem attached (benchmarks)
+    static UtilizationRollups of(List<RentalRecord> history, int threads) {
+        return new UtilizationRollups(history, threads);
+    }
+
+    private UtilizationRollups(List<RentalRecord> history, int threads) {
+        this.rentalSystem = null;
+        this.pending = null;
+        backfill(history, threads);
+    }
+
+    public static int typeOf(Vehicle vehicle) {
+        if (vehicle instanceof SportCar) return 1; // before Car, which it extends
+        if (vehicle instanceof Car) return 0;
+        if (vehicle instanceof Minibus) return 2;
+        if (vehicle instanceof PickupTruck) return 3;
+        return 0;
+    }
+
+    private boolean hasUntypedVehicles() {
+        if (rentalSystem == null) return false;
+        for (Vehicle v : rentalSystem.snapshot().getVehicles()) {
+            if (v.isTypeUnknown()) return true;
+        }
+        return false;
+    }
+
+    private void checkTyped() {
+        if (untypedRecords > 0 || hasUntypedVehicles()) {
+            throw new IllegalStateException("Vehicle types are unknown for some vehicles (loaded from a vehicles.txt "
+                + "without the type column); re-add them with their type before asking for per-type utilization");
+        }
+    }
+
+    public static int typeIndex(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equalsIgnoreCase(type)) return i;
+        }
+        throw new IllegalArgumentException("Unknown vehicle type: " + type);
+    }
+
+    @Override
+    public synchronized void recordAdded(RentalRecord record) {
+        if (pending != null) pending.add(record);
+        else apply(record);
+    }
+
+    // One entry per day in [from, to]
+    public synchronized List<DayRollup> series(String type, LocalDate from, LocalDate to) {
+        int t = typeIndex(type);
+        checkTyped();
+        List<DayRollup> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            int i = indexOf(day);
+            result.add(new DayRollup(day, outAt(t, i), inRange(i) ? rentals[t][i] : 0, inRange(i) ? revenue[t][i] : 0));
+        }
+        return result;
+    }
+
+    public synchronized Summary summarize(String type, LocalDate from, LocalDate to) {
+        int t = typeIndex(type);
+        checkTyped();
+        Summary summary = new Summary();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            int i = indexOf(day);
+            summary.days++;
+            summary.rentalDays += outAt(t, i);
+            if (inRange(i)) {
+                summary.rentals += rentals[t][i];
+                summary.revenueCents += revenue[t][i];
+            }
+        }
+        if (rentalSystem != null) {
+            for (Vehicle v : rentalSystem.snapshot().getVehicles()) {
+                if (typeOf(v) == t) summary.fleetSize++;
+            }
+        }
+        return summary;
+    }
+
+    // Runs save() every period on a daemon thread
+    public synchronized void start(long period, TimeUnit unit) {
+        if (saver != null) return;
+        saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "rollup-saver");
+            t.setDaemon(true);
+            return t;
+        });
+        saver.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (IOException | RuntimeException e) { // a RuntimeException would cancel later saves
+                System.out.println("Error saving utilization rollups: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    public synchronized void stop() {
+        if (saver != null) {
+            saver.shutdown();
+            saver = null;
+        }
+    }
+
+    // Writes the rollups atomically: a header with the number of records they cover,
+    // then date,type,vehiclesOut,rentals,revenueCents for every covered day
+    public synchronized void save() throws IOException {
+        Path file = rentalSystem.dataFile(ROLLUP_FILE);
+        Path tmp = rentalSystem.dataFile(ROLLUP_FILE + ".tmp");
+        try (Writer w = Files.newBufferedWriter(tmp)) {
+            w.write("# records=" + recordsApplied + " base=" + baseDay + " days=" + days + "\n");
+            for (int i = 0; i < days; i++) {
+                LocalDate day = baseDay.plusDays(i);
+                for (int t = 0; t < TYPES.length; t++) {
+                    w.write(day + "," + TYPES[t] + "," + out[t][i] + "," + rentals[t][i] + "," + revenue[t][i] + "\n");
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Loads the saved rollups if they cover exactly `historySize` records; anything else
+    // (new rentals since the save, a missing or damaged file) means a backfill
+    private synchronized boolean load(int historySize) {
+        Path file = rentalSystem.dataFile(ROLLUP_FILE);
+        if (!Files.exists(file)) return false;
+        try (BufferedReader in = Files.newBufferedReader(file)) {
+            String header = in.readLine();
+            if (header == null || !header.startsWith("# records=")) return false;
+            String[] fields = header.substring(2).split(" ");
+            if (Long.parseLong(fields[0].substring("records=".length())) != historySize) return false;
+            String base = fields[1].substring("base=".length());
+            int count = Integer.parseInt(fields[2].substring("days=".length()));
+            LocalDate loadedBase = base.equals("null") ? null : LocalDate.parse(base);
+            int[][] loadedOut = new int[TYPES.length][count];
+            int[][] loadedRentals = new int[TYPES.length][count];
+            long[][] loadedRevenue = new long[TYPES.length][count];
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.split(",");
+                int i = (int) ChronoUnit.DAYS.between(loadedBase, LocalDate.parse(parts[0]));
+                int t = typeIndex(parts[1]);
+                loadedOut[t][i] = Integer.parseInt(parts[2]);
+                loadedRentals[t][i] = Integer.parseInt(parts[3]);
+                loadedRevenue[t][i] = Long.parseLong(parts[4]);
+            }
+            baseDay = loadedBase;
+            days = count;
+            out = loadedOut;
+            rentals = loadedRentals;
+            revenue = loadedRevenue;
+            recordsApplied = historySize;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Rebuilding utilization rollups: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void backfill(List<RentalRecord> history, int threads) {
+        if (history.isEmpty()) return;
+        LocalDate first = history.get(0).getRecordDate();
+        LocalDate last = first;
+        for (RentalRecord record : history) { // archive and live files interleave dates, so scan for the range
+            LocalDate date = record.getRecordDate();
+            if (date.isBefore(first)) first = date;
+            if (date.isAfter(last)) last = date;
+        }
+        LocalDate base = first;
+        int span = (int) ChronoUnit.DAYS.between(first, last) + 1;
+
+        // each chunk: out deltas (+1 RENT, -1 RETURN), rentals and revenue per type and day,
+        // and a count of records with an untyped vehicle
+        int chunks = Math.max(1, Math.min(threads, history.size() / 10_000 + 1));
+        List<CompletableFuture<long[][][]>> parts = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newFixedThreadPool(chunks)) {
+            for (int c = 0; c < chunks; c++) {
+                List<RentalRecord> chunk = history.subList(history.size() * c / chunks, history.size() * (c + 1) / chunks);
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    long[][][] acc = {new long[TYPES.length][span], new long[TYPES.length][span],
+                        new long[TYPES.length][span], new long[1][1]};
+                    for (RentalRecord record : chunk) {
+                        if (record.getVehicle().isTypeUnknown()) acc[3][0][0]++;
+                        int t = typeOf(record.getVehicle());
+                        int i = (int) ChronoUnit.DAYS.between(base, record.getRecordDate());
+                        if ("RENT".equals(record.getRecordType())) {
+                            acc[0][t][i]++;
+                            acc[1][t][i]++;
+                        } else {
+                            acc[0][t][i]--;
+                        }
+                        acc[2][t][i] += record.getAmountCents();
+                    }
+                    return acc;
+                }, pool));
+            }
+        }
+        int[][] newOut = new int[TYPES.length][span];
+        int[][] newRentals = new int[TYPES.length][span];
+        long[][] newRevenue = new long[TYPES.length][span];
+        long untyped = 0;
+        for (CompletableFuture<long[][][]> part : parts) {
+            long[][][] acc = part.join();
+            untyped += acc[3][0][0];
+            for (int t = 0; t < TYPES.length; t++) {
+                for (int i = 0; i < span; i++) {
+                    newOut[t][i] += (int) acc[0][t][i];
+                    newRentals[t][i] += (int) acc[1][t][i];
+                    newRevenue[t][i] += acc[2][t][i];
+                }
+            }
+        }
+        for (int t = 0; t < TYPES.length; t++) {
+            for (int i = 1; i < span; i++) newOut[t][i] += newOut[t][i - 1];
+        }
+        synchronized (this) {
+            baseDay = base;
+            days = span;
+            out = newOut;
+            rentals = newRentals;
+            revenue = newRevenue;
+            recordsApplied = history.size();
+            untypedRecords = untyped;
+        }
+    }
+
+    // Incremental update; O(days after the record's date), which is O(1) for today's records
+    private void apply(RentalRecord record) {
+        int i = ensureDay(record.getRecordDate());
+        int t = typeOf(record.getVehicle());
+        if ("RENT".equals(record.getRecordType())) {
+            rentals[t][i]++;
+            for (int d = i; d < days; d++) out[t][d]++;
+        } else {
+            for (int d = i; d < days; d++) out[t][d]--;
+        }
+        revenue[t][i] += record.getAmountCents();
+        if (record.getVehicle().isTypeUnknown()) untypedRecords++;
+        recordsApplied++;
+    }
+
+    // Grows the day range to include `day` (carrying vehicles-out forward) and returns its index
+    private int ensureDay(LocalDate day) {
+        if (baseDay == null) {
+            baseDay = day;
+        }
+        int i = indexOf(day);
+        if (i < 0) { // back-dated before the first day: shift everything right
+            int shift = -i;
+            for (int t = 0; t < TYPES.length; t++) {
+                out[t] = shiftRight(out[t], shift, days);
+                rentals[t] = shiftRight(rentals[t], shift, days);
+                revenue[t] = shiftRight(revenue[t], shift, days);
+            }
+            baseDay = day;
+            days += shift;
+            i = 0;
+        }
+        if (i >= days) {
+            int newDays = i + 1;
+            for (int t = 0; t < TYPES.length; t++) {
+                int carried = days == 0 ? 0 : out[t][days - 1];
+                if (out[t].length < newDays) {
+                    int capacity = Math.max(newDays, out[t].length * 2);
+                    out[t] = Arrays.copyOf(out[t], capacity);
+                    rentals[t] = Arrays.copyOf(rentals[t], capacity);
+                    revenue[t] = Arrays.copyOf(revenue[t], capacity);
+                }
+                Arrays.fill(out[t], days, newDays, carried);
+            }
+            days = newDays;
+        }
+        return i;
+    }
+
+    private static int[] shiftRight(int[] values, int shift, int used) {
+        int[] shifted = new int[Math.max(values.length, used) + shift];
+        System.arraycopy(values, 0, shifted, shift, used);
+        return shifted;
+    }
+
+    private static long[] shiftRight(long[] values, int shift, int used) {
+        long[] shifted = new long[Math.max(values.length, used) + shift];
+        System.arraycopy(values, 0, shifted, shift, used);
+        return shifted;
+    }
+
+    private int indexOf(LocalDate day) {
+        return baseDay == null ? -1 : (int) ChronoUnit.DAYS.between(baseDay, day);
+    }
+
+    private boolean inRange(int i) {
+        return i >= 0 && i < days;
+    }
+
+    // Vehicles out at the end of day i; after the last covered day the count carries forward
+    private int outAt(int t, int i) {
+        if (i < 0 || days == 0) return 0;
+        return out[t][Math.min(i, days - 1)];
+    }
+}
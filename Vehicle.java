@@ -1,51 +1,95 @@
 public abstract class Vehicle {
     private String licensePlate;
-    private String make;
-    private String model;
+    private long plateKey = PlateCodec.INVALID;
+    private int makeCode;  // codes into MAKES / MODELS
+    private int modelCode;
     private int year;
-    private VehicleStatus status;
+    private volatile VehicleStatus status;
+    // For RentalSnapshot.statusOf: history index of the last RENT/RETURN that changed the
+    // status, and the status before the first such change
+    private volatile int lastChangeIndex = -1;
+    private volatile VehicleStatus statusBeforeChanges;
+    private boolean typeUnknown; // loaded from a vehicles.txt line without a type (as a Car)
 
-    public enum VehicleStatus { Available, Held, Rented, UnderMaintenance, OutOfService }
+    public enum VehicleStatus {
+        Available, Held, Rented, UnderMaintenance, OutOfService;
+
+        // Allowed moves of the rent/return and maintenance state machine
+        public boolean canBecome(VehicleStatus next) {
+            switch (this) {
+                case Available: return next != Available;
+                case Held: return next == Available || next == Rented;
+                case Rented: return next == Available; // back from the customer before anything else
+                case UnderMaintenance: return next == Available || next == OutOfService;
+                case OutOfService: return next == UnderMaintenance; // recommissioned through a service
+                default: return false;
+            }
+        }
+    }
+
+    // Shared make/model dictionaries: one capitalized String per distinct name
+    public static final NameDictionary MAKES = new NameDictionary();
+    public static final NameDictionary MODELS = new NameDictionary();
 
     public Vehicle(String make, String model, int year) {
-    	this.make = capitalize(make);//added for task 1.5
-    	this.model = capitalize(model);//added for task 1.5
+    	this.makeCode = MAKES.encode(make);//capitalized once per distinct name (task 1.5)
+    	this.modelCode = MODELS.encode(model);
     	this.year = year;
         this.status = VehicleStatus.Available;
         this.licensePlate = null;
     }
-//Edited as per task 1.5
-	private String capitalize(String input) {//deletes use of repeated logic
-		if (input == null || input.isEmpty())
-    		return null;
-    	else
-    		return input.substring(0, 1).toUpperCase() + input.substring(1).toLowerCase();
-	}
 
     public Vehicle() {
         this(null, null, 0);
     }
 
     public void setLicensePlate(String plate) {
-        this.licensePlate = plate == null ? null : plate.toUpperCase();
+        long key = PlateCodec.encode(plate);
+        if (key == PlateCodec.INVALID) {
+            throw new IllegalArgumentException("License plate must be 3 letters followed by 3 digits (e.g. ABC123): " + plate);
+        }
+        this.licensePlate = plate.toUpperCase(); // same String back when it is already upper case
+        this.plateKey = key;
     }
 
     public void setStatus(VehicleStatus status) {
     	this.status = status;
     }
 
+    // Status change made by the RENT/RETURN record at `historyIndex`; the index is
+    // written before the status so a reader that sees the new status sees the index too
+    void changeStatus(VehicleStatus status, int historyIndex) {
+        if (lastChangeIndex < 0) statusBeforeChanges = this.status;
+        lastChangeIndex = historyIndex;
+        this.status = status;
+    }
+
+    int getLastChangeIndex() { return lastChangeIndex; }
+
+    VehicleStatus getStatusBeforeChanges() { return statusBeforeChanges; }
+
+    void markTypeUnknown() { typeUnknown = true; }
+
+    public boolean isTypeUnknown() { return typeUnknown; }
+
     public String getLicensePlate() { return licensePlate; }
 
-    public String getMake() { return make; }
+    public long getPlateKey() { return plateKey; }
+
+    public String getMake() { return MAKES.name(makeCode); }
+
+    public String getModel() { return MODELS.name(modelCode); }
+
+    public int getMakeCode() { return makeCode; }
 
-    public String getModel() { return model;}
+    public int getModelCode() { return modelCode; }
 
     public int getYear() { return year; }
 
     public VehicleStatus getStatus() { return status; }
 
     public String getInfo() {
-        return "| " + licensePlate + " | " + make + " | " + model + " | " + year + " | " + status + " |";
+        return "| " + licensePlate + " | " + getMake() + " | " + getModel() + " | " + year + " | " + status + " |";
     }
 
 }
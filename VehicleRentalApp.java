@@ -1,10 +1,27 @@
 import java.util.Scanner;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.function.Predicate;
 
 public class VehicleRentalApp {
-    public static void main(String[] args) {
+    private static final int PAGE_SIZE = 20; // rows per screen in the menus
+
+    public static void main(String[] args) throws java.io.IOException {
+        RentalSystem.useLazyHistory(true); // menus and vehicle listings don't wait for rental_records.txt
+        // Non-interactive replay of a command file; see RentalBatch for the format
+        if (args.length > 0 && args[0].equals("--batch")) {
+            RentalBatch.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // One page of a listing, e.g. --history --customer 42 --limit 50
+        if (args.length > 0 && (args[0].equals("--vehicles") || args[0].equals("--history"))) {
+            list(RentalSystem.getInstance(), args);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         RentalSystem rentalSystem = RentalSystem.getInstance();
+        Housekeeping.start(rentalSystem); // rollups and nightly maintenance; saved again on exit
+        PricingEngine pricing = new PricingEngine();
 
         while (true) {
         	System.out.println("\n1: Add Vehicle\n" + 
@@ -59,8 +76,12 @@ public class VehicleRentalApp {
 		            }
                     
                     if (vehicle != null){
-	                    vehicle.setLicensePlate(plate);
-	                    rentalSystem.addVehicle(vehicle);
+	                    try {
+	                        vehicle.setLicensePlate(plate);
+	                        rentalSystem.addVehicle(vehicle);
+	                    } catch (IllegalArgumentException e) {
+	                        System.out.println(e.getMessage());
+	                    }
                     }
                     else {
 	                    System.out.println("Vehicle not added successfully.");
@@ -79,19 +100,20 @@ public class VehicleRentalApp {
                     break;
                     
                 case 3:
-                	rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available);
+                    for (int page = 0; rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available, page * PAGE_SIZE, PAGE_SIZE)
+                            && nextPage(scanner); page++) { }
 
                     System.out.print("Enter license plate: ");
                     String rentPlate = scanner.nextLine().toUpperCase();
 
                 	System.out.println("Registered Customers:");
-                	rentalSystem.displayAllCustomers();
+                    for (int page = 0; rentalSystem.displayCustomers(page * PAGE_SIZE, PAGE_SIZE) && nextPage(scanner); page++) { }
 
                     System.out.print("Enter customer ID: ");
                     int cidRent = scanner.nextInt();
 
-                    System.out.print("Enter rental amount: ");
-                    double rentAmount = scanner.nextDouble();
+                    System.out.print("Enter number of rental days: ");
+                    int rentDays = scanner.nextInt();
                     scanner.nextLine();
 
                     Vehicle vehicleToRent = rentalSystem.findVehicleByPlate(rentPlate);
@@ -102,17 +124,24 @@ public class VehicleRentalApp {
                         break;
                     }
 
-                    rentalSystem.rentVehicle(vehicleToRent, customerToRent, LocalDate.now(), rentAmount);
+                    if (rentDays <= 0) {
+                        System.out.println("Rental must be at least one day.");
+                        break;
+                    }
+                    PricingEngine.Quote quote = pricing.quote(vehicleToRent, LocalDate.now(), rentDays, 0);
+                    System.out.println("Quote: " + quote);
+                    rentalSystem.rentVehicleCents(vehicleToRent, customerToRent, LocalDate.now(), quote.totalCents, LocalDate.now().plusDays(rentDays));
                     break;
 
                 case 4:
-                	rentalSystem.displayVehicles(Vehicle.VehicleStatus.Rented);
+                    for (int page = 0; rentalSystem.displayVehicles(Vehicle.VehicleStatus.Rented, page * PAGE_SIZE, PAGE_SIZE)
+                            && nextPage(scanner); page++) { }
 
                 	System.out.print("Enter license plate: ");
                     String returnPlate = scanner.nextLine().toUpperCase();
                     
                 	System.out.println("Registered Customers:");
-                	rentalSystem.displayAllCustomers();
+                    for (int page = 0; rentalSystem.displayCustomers(page * PAGE_SIZE, PAGE_SIZE) && nextPage(scanner); page++) { }
 
                     System.out.print("Enter customer ID: ");
                     int cidReturn = scanner.nextInt();
@@ -133,11 +162,13 @@ public class VehicleRentalApp {
                     break;
                     
                 case 5:
-                    rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available);
+                    for (int page = 0; rentalSystem.displayVehicles(Vehicle.VehicleStatus.Available, page * PAGE_SIZE, PAGE_SIZE)
+                            && nextPage(scanner); page++) { }
                     break;
                 
                 case 6:
-                    rentalSystem.displayRentalHistory();
+                    for (int page = 0; rentalSystem.displayRentalHistory(null, page * PAGE_SIZE, PAGE_SIZE)
+                            && nextPage(scanner); page++) { }
                     break;
                     
                 case 0:
@@ -146,4 +177,84 @@ public class VehicleRentalApp {
             }
         }
     }
+
+    private static boolean nextPage(Scanner scanner) {
+        System.out.print("Enter n for the next page, anything else to stop: ");
+        return scanner.nextLine().trim().equalsIgnoreCase("n");
+    }
+
+    //   --vehicles [--status Available] [--offset N] [--limit N]
+    //   --history [--plate ABC123] [--customer 42] [--type RENT|RETURN] [--from date] [--to date] [--offset N] [--limit N]
+    private static void list(RentalSystem rentalSystem, String[] args) {
+        int offset = 0;
+        int limit = PAGE_SIZE;
+        Vehicle.VehicleStatus status = null;
+        Predicate<RentalRecord> filter = null;
+        try {
+            if (args.length % 2 == 0) throw new IllegalArgumentException("Missing value for " + args[args.length - 1]);
+            for (int i = 1; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                Predicate<RentalRecord> test = null;
+                switch (args[i]) {
+                    case "--offset": offset = number(args[i], value, 0); break;
+                    case "--limit": limit = number(args[i], value, 1); break;
+                    case "--status": status = status(value); break;
+                    case "--plate": test = r -> r.getVehicle().getLicensePlate().equalsIgnoreCase(value); break;
+                    case "--customer": {
+                        int id = number(args[i], value, 0);
+                        test = r -> r.getCustomer().getCustomerId() == id;
+                        break;
+                    }
+                    case "--type": {
+                        if (!value.equalsIgnoreCase("RENT") && !value.equalsIgnoreCase("RETURN")) {
+                            throw new IllegalArgumentException("--type must be RENT or RETURN, not " + value);
+                        }
+                        test = r -> r.getRecordType().equalsIgnoreCase(value);
+                        break;
+                    }
+                    case "--from": {
+                        LocalDate from = LocalDate.parse(value);
+                        test = r -> !r.getRecordDate().isBefore(from);
+                        break;
+                    }
+                    case "--to": {
+                        LocalDate to = LocalDate.parse(value);
+                        test = r -> !r.getRecordDate().isAfter(to);
+                        break;
+                    }
+                    default: throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+                if (test != null) filter = filter == null ? test : filter.and(test);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Usage: java VehicleRentalApp --vehicles [--status Available] [--offset N] [--limit N]");
+            System.out.println("       java VehicleRentalApp --history [--plate ABC123] [--customer 42] [--type RENT|RETURN]"
+                + " [--from date] [--to date] [--offset N] [--limit N]");
+            return;
+        }
+        if (args[0].equals("--vehicles")) {
+            rentalSystem.displayVehicles(status, offset, limit);
+        } else {
+            rentalSystem.displayRentalHistory(filter, offset, limit);
+        }
+    }
+
+    private static int number(String option, String value, int min) {
+        int n;
+        try {
+            n = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " must be a number, not " + value);
+        }
+        if (n < min) throw new IllegalArgumentException(option + " must be at least " + min);
+        return n;
+    }
+
+    private static Vehicle.VehicleStatus status(String value) {
+        for (Vehicle.VehicleStatus status : Vehicle.VehicleStatus.values()) {
+            if (status.name().equalsIgnoreCase(value)) return status;
+        }
+        throw new IllegalArgumentException("--status must be one of " + java.util.Arrays.toString(Vehicle.VehicleStatus.values()));
+    }
 }
\ No newline at end of file